@@ -23,6 +23,7 @@
  */
 package com.robestone.hudson.compactcolumns;
 
+import hudson.model.Job;
 import hudson.views.ListViewColumn;
 
 public abstract class AbstractCompactColumn extends ListViewColumn {
@@ -43,4 +44,18 @@ public abstract class AbstractCompactColumn extends ListViewColumn {
     public boolean isShowColorblindUnderlineHint() {
         return colorblindHint_Underline.equals(colorblindHint);
     }
+
+    /** Whether links are styled with classes of the plugin's stylesheet instead of inline styles. */
+    public boolean isCssClasses() {
+        return CompactColumnsConfiguration.get().isCssClasses();
+    }
+
+    /** @return the start of rendering a cell if {@link SlowCellTracer} is on, null otherwise */
+    public SlowCellTracer.Span startTrace() {
+        return SlowCellTracer.get().start();
+    }
+
+    public void endTrace(SlowCellTracer.Span span, Job<?, ?> job) {
+        SlowCellTracer.get().end(span, job, getClass(), SlowCellTracer.Part.CELL);
+    }
 }
@@ -24,10 +24,7 @@
 package com.robestone.hudson.compactcolumns;
 
 import hudson.model.Job;
-import hudson.model.Result;
-import hudson.model.Run;
 import hudson.views.ListViewColumnDescriptor;
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -37,10 +34,22 @@ import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.FormatStyle;
 import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import org.jvnet.localizer.LocaleProvider;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.GET;
 
 public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
 
@@ -49,13 +58,11 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
     public static final String STABLE_UNDERLINE_STYLE = "0px solid";
     public static final String FAILED_UNDERLINE_STYLE = "1px solid";
 
-    // copied from hudson.Util because they were private
-    private static final long ONE_SECOND_MS = 1000;
-    private static final long ONE_MINUTE_MS = 60 * ONE_SECOND_MS;
-    private static final long ONE_HOUR_MS = 60 * ONE_MINUTE_MS;
-    static final long ONE_DAY_MS = 24 * ONE_HOUR_MS;
-    private static final long ONE_MONTH_MS = 30 * ONE_DAY_MS;
-    private static final long ONE_YEAR_MS = 365 * ONE_DAY_MS;
+    static final long ONE_DAY_MS = ShortTimestamp.ONE_DAY_MS;
+    private static final int MAX_FORMATTERS = 256;
+    /** Formatters are immutable and thread-safe, so they can be shared by all requests. */
+    private static final Map<FormatterKey, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
     private transient TimeAgoType timeAgoType;
     private String timeAgoTypeString;
 
@@ -74,33 +81,53 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
             boolean isShowColorblindUnderlineHint,
             TimeAgoType timeAgoType,
             int hideDays) {
+        return getBuilds(
+                JobStatusCache.get().getSnapshot(job),
+                RenderBatch.of(locale),
+                isFailedShownOnlyIfLast,
+                isUnstableShownOnlyIfLast,
+                isOnlyShowLastStatus,
+                isShowColorblindUnderlineHint,
+                timeAgoType,
+                hideDays);
+    }
+
+    static List<BuildInfo> getBuilds(
+            JobStatusSnapshot snapshot,
+            RenderBatch batch,
+            boolean isFailedShownOnlyIfLast,
+            boolean isUnstableShownOnlyIfLast,
+            boolean isOnlyShowLastStatus,
+            boolean isShowColorblindUnderlineHint,
+            TimeAgoType timeAgoType,
+            int hideDays) {
         List<BuildInfo> builds = new ArrayList<BuildInfo>();
 
         addNonNull(
                 builds,
                 getLastFailedBuild(
-                        job, locale, isFailedShownOnlyIfLast, isShowColorblindUnderlineHint, true, timeAgoType));
+                        snapshot, batch, isFailedShownOnlyIfLast, isShowColorblindUnderlineHint, true, timeAgoType));
         addNonNull(
                 builds,
                 getLastUnstableBuild(
-                        job,
-                        locale,
+                        snapshot,
+                        batch,
                         isUnstableShownOnlyIfLast,
                         isShowColorblindUnderlineHint,
                         builds.isEmpty(),
                         timeAgoType));
         addNonNull(
-                builds, getLastStableBuild(job, locale, isShowColorblindUnderlineHint, builds.isEmpty(), timeAgoType));
+                builds,
+                getLastStableBuild(snapshot, batch, isShowColorblindUnderlineHint, builds.isEmpty(), timeAgoType));
 
         if (builds.isEmpty()) {
             BuildInfo aborted = createBuildInfo(
-                    getLastAbortedBuild(job),
+                    snapshot.getLastAbortedBuild(),
                     BuildInfo.getOtherColor(),
                     OTHER_UNDERLINE_STYLE,
-                    getAbortedMessage(),
+                    batch.abortedMessage,
                     null,
-                    job,
-                    locale,
+                    snapshot,
                     isShowColorblindUnderlineHint,
                     true,
                     timeAgoType);
@@ -110,7 +137,7 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
         Collections.sort(builds);
 
         List<BuildInfo> filtered = new ArrayList<BuildInfo>();
-        long now = System.currentTimeMillis();
+        long now = batch.now;
         long maxDiff = hideDays * ONE_DAY_MS;
 
         for (int i = 0; i < builds.size(); i++) {
@@ -134,12 +161,71 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
             BuildInfo info = builds.get(i);
             info.setFirst(i == 0);
             info.setMultipleBuilds(builds.size() > 1);
-            assignTimeAgoString(info, locale, timeAgoType);
+            assignTimeAgoString(info, batch, timeAgoType);
         }
 
         return builds;
     }
 
+    /**
+     * Same as the first of {@link #getBuilds(Job, Locale, boolean, boolean, boolean, boolean, TimeAgoType,
+     * int)} with {@code isOnlyShowLastStatus}, but only looks at the one build that is shown.
+     *
+     * @return the newest build to show, or null if there is none
+     */
+    public static BuildInfo getNewestBuild(
+            Job<?, ?> job,
+            Locale locale,
+            boolean isFailedShownOnlyIfLast,
+            boolean isUnstableShownOnlyIfLast,
+            boolean isShowColorblindUnderlineHint,
+            TimeAgoType timeAgoType) {
+        return getNewestBuild(
+                JobStatusCache.get().getSnapshot(job),
+                RenderBatch.of(locale),
+                isFailedShownOnlyIfLast,
+                isUnstableShownOnlyIfLast,
+                isShowColorblindUnderlineHint,
+                timeAgoType);
+    }
+
+    static BuildInfo getNewestBuild(
+            JobStatusSnapshot snapshot,
+            RenderBatch batch,
+            boolean isFailedShownOnlyIfLast,
+            boolean isUnstableShownOnlyIfLast,
+            boolean isShowColorblindUnderlineHint,
+            TimeAgoType timeAgoType) {
+        JobStatusSnapshot.Build first = getFirstBuild(snapshot, isFailedShownOnlyIfLast, isUnstableShownOnlyIfLast);
+        BuildInfo info;
+        if (first == null) {
+            return null;
+        } else if (first == snapshot.getLastStableBuild()) {
+            info = getLastStableBuild(snapshot, batch, isShowColorblindUnderlineHint, true, timeAgoType);
+        } else if (first == snapshot.getLastUnstableBuild()) {
+            info = getLastUnstableBuild(
+                    snapshot, batch, isUnstableShownOnlyIfLast, isShowColorblindUnderlineHint, true, timeAgoType);
+        } else if (first == snapshot.getLastFailedBuild()) {
+            info = getLastFailedBuild(
+                    snapshot, batch, isFailedShownOnlyIfLast, isShowColorblindUnderlineHint, true, timeAgoType);
+        } else {
+            info = createBuildInfo(
+                    first,
+                    BuildInfo.getOtherColor(),
+                    OTHER_UNDERLINE_STYLE,
+                    batch.abortedMessage,
+                    null,
+                    snapshot,
+                    isShowColorblindUnderlineHint,
+                    true,
+                    timeAgoType);
+        }
+        info.setFirst(true);
+        info.setMultipleBuilds(false);
+        assignTimeAgoString(info, batch, timeAgoType);
+        return info;
+    }
+
     /**
      * @param onlyIfLastCompleted When the statuses aren't sorted, we only show the last failed when
      *     it is also the latest completed build.
@@ -151,19 +237,34 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
             boolean isShowColorblindUnderlineHint,
             boolean isFirst,
             TimeAgoType timeAgoType) {
-        Run<?, ?> lastFailedBuild = job.getLastFailedBuild();
-        Run<?, ?> lastCompletedBuild = job.getLastCompletedBuild();
+        return getLastFailedBuild(
+                JobStatusCache.get().getSnapshot(job),
+                RenderBatch.of(locale),
+                onlyIfLastCompleted,
+                isShowColorblindUnderlineHint,
+                isFirst,
+                timeAgoType);
+    }
+
+    static BuildInfo getLastFailedBuild(
+            JobStatusSnapshot snapshot,
+            RenderBatch batch,
+            boolean onlyIfLastCompleted,
+            boolean isShowColorblindUnderlineHint,
+            boolean isFirst,
+            TimeAgoType timeAgoType) {
+        JobStatusSnapshot.Build lastFailedBuild = snapshot.getLastFailedBuild();
+        JobStatusSnapshot.Build lastCompletedBuild = snapshot.getLastCompletedBuild();
         if (lastFailedBuild == null) {
             return null;
-        } else if (!onlyIfLastCompleted || (lastCompletedBuild.number == lastFailedBuild.number)) {
+        } else if (!onlyIfLastCompleted || (lastCompletedBuild.getNumber() == lastFailedBuild.getNumber())) {
             return createBuildInfo(
-                    job.getLastFailedBuild(),
+                    lastFailedBuild,
                     BuildInfo.getFailedColor(),
                     FAILED_UNDERLINE_STYLE,
-                    getFailedMessage(),
+                    batch.failedMessage,
                     "lastFailedBuild",
-                    job,
-                    locale,
+                    snapshot,
                     isShowColorblindUnderlineHint,
                     isFirst,
                     timeAgoType);
@@ -178,14 +279,27 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
             boolean isShowColorblindUnderlineHint,
             boolean isFirst,
             TimeAgoType timeAgoType) {
+        return getLastStableBuild(
+                JobStatusCache.get().getSnapshot(job),
+                RenderBatch.of(locale),
+                isShowColorblindUnderlineHint,
+                isFirst,
+                timeAgoType);
+    }
+
+    static BuildInfo getLastStableBuild(
+            JobStatusSnapshot snapshot,
+            RenderBatch batch,
+            boolean isShowColorblindUnderlineHint,
+            boolean isFirst,
+            TimeAgoType timeAgoType) {
         return createBuildInfo(
-                job.getLastStableBuild(),
+                snapshot.getLastStableBuild(),
                 BuildInfo.getStableColor(),
                 STABLE_UNDERLINE_STYLE,
-                getStableMessage(),
+                batch.stableMessage,
                 "lastStableBuild",
-                job,
-                locale,
+                snapshot,
                 isShowColorblindUnderlineHint,
                 isFirst,
                 timeAgoType);
@@ -198,13 +312,29 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
             boolean isShowColorblindUnderlineHint,
             boolean isFirst,
             TimeAgoType timeAgoType) {
-        Run<?, ?> lastUnstable = job.getLastUnstableBuild();
+        return getLastUnstableBuild(
+                JobStatusCache.get().getSnapshot(job),
+                RenderBatch.of(locale),
+                isUnstableShownOnlyIfLast,
+                isShowColorblindUnderlineHint,
+                isFirst,
+                timeAgoType);
+    }
+
+    static BuildInfo getLastUnstableBuild(
+            JobStatusSnapshot snapshot,
+            RenderBatch batch,
+            boolean isUnstableShownOnlyIfLast,
+            boolean isShowColorblindUnderlineHint,
+            boolean isFirst,
+            TimeAgoType timeAgoType) {
+        JobStatusSnapshot.Build lastUnstable = snapshot.getLastUnstableBuild();
         if (lastUnstable == null) {
             return null;
         }
 
-        Run<?, ?> lastCompleted = job.getLastCompletedBuild();
-        boolean isLastCompleted = (lastCompleted != null && lastCompleted.number == lastUnstable.number);
+        JobStatusSnapshot.Build lastCompleted = snapshot.getLastCompletedBuild();
+        boolean isLastCompleted = (lastCompleted != null && lastCompleted.getNumber() == lastUnstable.getNumber());
         if (isUnstableShownOnlyIfLast && !isLastCompleted) {
             return null;
         }
@@ -213,10 +343,9 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
                 lastUnstable,
                 BuildInfo.getUnstableColor(),
                 UNSTABLE_UNDERLINE_STYLE,
-                getUnstableMessage(),
-                String.valueOf(lastUnstable.number),
-                job,
-                locale,
+                batch.unstableMessage,
+                String.valueOf(lastUnstable.getNumber()),
+                snapshot,
                 isShowColorblindUnderlineHint,
                 isFirst,
                 timeAgoType);
@@ -228,48 +357,31 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
         }
     }
 
-    private static Run<?, ?> getLastAbortedBuild(Job<?, ?> job) {
-        Run<?, ?> latest = job.getLastBuild();
-        int i = 0;
-        while (latest != null && i++ < 20) {
-            if (latest.getResult() == Result.ABORTED) {
-                return latest;
-            }
-            latest = latest.getPreviousBuild();
-        }
-        return null;
-    }
-
-    private static void assignTimeAgoString(BuildInfo info, Locale locale, TimeAgoType timeAgoType) {
-        String timeAgoString = getTimeAgoString(locale, info.getBuildTime(), info.isMultipleBuilds(), timeAgoType);
-        info.setTimeAgoString(timeAgoString);
+    /** Only formatted when asked for, which the cells do not when the browser renders the times. */
+    private static void assignTimeAgoString(BuildInfo info, RenderBatch batch, TimeAgoType timeAgoType) {
+        info.setTimeAgo(batch, timeAgoType);
     }
 
     private static BuildInfo createBuildInfo(
-            Run<?, ?> run,
+            JobStatusSnapshot.Build run,
             String color,
             String underlineStyle,
             String status,
             String urlPart,
-            Job<?, ?> job,
-            Locale locale,
+            JobStatusSnapshot snapshot,
             boolean isShowColorblindUnderlineHint,
             boolean isFirst,
             TimeAgoType timeAgoType) {
         if (run != null) {
-            long buildTime = run.getTime().getTime();
             if (urlPart == null) {
-                urlPart = String.valueOf(run.number);
-            }
-            Run<?, ?> latest = job.getLastCompletedBuild();
-            if (latest == null) {
-                latest = job.getLastBuild();
+                urlPart = String.valueOf(run.getNumber());
             }
+            JobStatusSnapshot.Build latest = snapshot.getLatestBuild();
             if (!isShowColorblindUnderlineHint) {
                 underlineStyle = null;
             }
-            BuildInfo build =
-                    new BuildInfo(run, color, underlineStyle, buildTime, status, urlPart, run.number == latest.number);
+            boolean isLatestBuild = latest == null || run.getNumber() == latest.getNumber();
+            BuildInfo build = new BuildInfo(run, color, underlineStyle, status, urlPart, isLatestBuild);
             return build;
         }
         return null;
@@ -277,24 +389,26 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
 
     protected static String getTimeAgoString(
             Locale locale, long timestamp, boolean isMultiple, TimeAgoType timeAgoType) {
+        return getTimeAgoString(locale, timestamp, System.currentTimeMillis(), isMultiple, timeAgoType);
+    }
+
+    /** Reused for as long as it reads the same, see {@link TimeAgoStrings}. */
+    static String getTimeAgoString(
+            Locale locale, long timestamp, long now, boolean isMultiple, TimeAgoType timeAgoType) {
+        return TimeAgoStrings.get().get(locale, timestamp, now, isMultiple, timeAgoType);
+    }
+
+    static String formatTimeAgoString(
+            Locale locale, long timestamp, long now, boolean isMultiple, TimeAgoType timeAgoType) {
         if (timeAgoType == TimeAgoType.DIFF) {
-            long now = System.currentTimeMillis();
             float diff = now - timestamp;
-            String stime = getShortTimestamp(diff);
+            String stime = getShortTimestamp(diff, locale);
             return stime;
         } else {
             if (timeAgoType == TimeAgoType.PREFER_DATE_TIME && !isMultiple) {
                 return getBuildTimeString(timestamp, locale, true, true, true);
             } else {
-                Calendar nowCal = Calendar.getInstance();
-                nowCal.setTimeInMillis(System.currentTimeMillis());
-                Calendar thenCal = Calendar.getInstance();
-                thenCal.setTimeInMillis(timestamp);
-
-                int nowDay = nowCal.get(Calendar.DAY_OF_YEAR);
-                int thenDay = thenCal.get(Calendar.DAY_OF_YEAR);
-
-                boolean isToday = (nowDay == thenDay);
+                boolean isToday = DayClock.systemDefault().isToday(timestamp, now);
                 if (isToday) {
                     return getBuildTimeString(timestamp, locale, false, true, false);
                 } else {
@@ -304,6 +418,21 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
         }
     }
 
+    /**
+     * @return the time from which on {@link #getTimeAgoString(Locale, long, long, boolean, TimeAgoType)}
+     *     would return something else than it does for {@code now}, or {@link Long#MAX_VALUE} if never
+     */
+    static long getTimeAgoExpiry(long timestamp, long now, boolean isMultiple, TimeAgoType timeAgoType) {
+        if (timeAgoType == TimeAgoType.DIFF) {
+            return timestamp + ShortTimestamp.getNextChange(now - timestamp);
+        } else if (timeAgoType == TimeAgoType.PREFER_DATE_TIME && !isMultiple) {
+            return Long.MAX_VALUE;
+        } else {
+            // whether it is today changes at midnight
+            return DayClock.systemDefault().getEndOfDay(now);
+        }
+    }
+
     protected static String getBuildTimeString(long timeMs, Locale locale) {
         return getBuildTimeString(timeMs, locale, true, true, false);
     }
@@ -348,6 +477,21 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
 
     private static DateTimeFormatter getFormatter(
             Chronology chronology, Locale locale, FormatStyle dateStyle, FormatStyle timeStyle) {
+        FormatterKey key = new FormatterKey(chronology, locale, dateStyle, timeStyle);
+        DateTimeFormatter formatter = FORMATTERS.get(key);
+        if (formatter == null) {
+            formatter = createFormatter(chronology, locale, dateStyle, timeStyle);
+            if (FORMATTERS.size() >= MAX_FORMATTERS) {
+                // only a handful of locales are ever in use, this just keeps odd requests from piling up
+                FORMATTERS.clear();
+            }
+            FORMATTERS.put(key, formatter);
+        }
+        return formatter;
+    }
+
+    static DateTimeFormatter createFormatter(
+            Chronology chronology, Locale locale, FormatStyle dateStyle, FormatStyle timeStyle) {
         String pattern = DateTimeFormatterBuilder.getLocalizedDateTimePattern(dateStyle, timeStyle, chronology, locale);
         if (!pattern.contains("yyyy")) {
             pattern = pattern.replace("yy", "yyyy");
@@ -367,42 +511,15 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
      * </ul>
      */
     protected static String getShortTimestamp(float time) {
-        String ts;
-        float number;
-        if (time >= ONE_YEAR_MS) {
-            number = getRoundedNumber(time / ONE_YEAR_MS);
-            ts = Messages.util_year(number);
-        } else if (time >= ONE_MONTH_MS) {
-            number = getRoundedNumber(time / ONE_MONTH_MS);
-            ts = Messages.util_month(number);
-        } else if (time >= ONE_DAY_MS) {
-            number = getRoundedNumber(time / ONE_DAY_MS);
-            ts = Messages.util_day(number);
-        } else if (time >= ONE_HOUR_MS) {
-            number = getRoundedNumber(time / ONE_HOUR_MS);
-            ts = Messages.util_hour(number);
-        } else if (time >= ONE_MINUTE_MS) {
-            number = getRoundedNumber(time / ONE_MINUTE_MS);
-            ts = Messages.util_minute(number);
-        } else if (time >= ONE_SECOND_MS) {
-            number = getRoundedNumber(time / ONE_SECOND_MS);
-            ts = Messages.util_second(number);
-        } else {
-            ts = Messages.util_second(0);
-        }
-        return ts;
+        return getShortTimestamp(time, LocaleProvider.getLocale());
+    }
+
+    static String getShortTimestamp(float time, Locale locale) {
+        return ShortTimestamp.format(time, locale);
     }
 
     protected static float getRoundedNumber(float number) {
-        int scale;
-        if (number >= 10) {
-            scale = 0;
-        } else {
-            scale = 1;
-        }
-        return new BigDecimal(number)
-                .setScale(scale, BigDecimal.ROUND_HALF_DOWN)
-                .floatValue();
+        return ShortTimestamp.toFloat(ShortTimestamp.getRoundedTenths(number));
     }
 
     public static final String getAbortedMessage() {
@@ -421,7 +538,7 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
         StringBuilder buf = new StringBuilder();
         buf.append("<b><u>");
         buf.append(Messages.buildNumber());
-        buf.append(build.getRun().number);
+        buf.append(build.getNumber());
         buf.append(build.getLatestBuildString(locale));
         buf.append("</u></b>\n");
         buf.append(
@@ -468,27 +585,209 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
     }
 
     public String getColumnSortData(Job<?, ?> job) {
-        List<BuildInfo> builds = getBuilds(job, Locale.getDefault());
-        if (builds.isEmpty()) {
-            return "0";
+        return String.valueOf(getColumnSortKey(job));
+    }
+
+    /**
+     * @return the start time of the first build of the cell, or 0 if there is none. Taken from the
+     *     builds of the cell if they were computed already, and otherwise read from the snapshot
+     *     without creating any of them.
+     */
+    public long getColumnSortKey(Job<?, ?> job) {
+        ColumnRenderContext context = ColumnRenderContext.current();
+        if (context != null) {
+            List<BuildInfo> builds = context.peekBuilds(this, job, ColumnRenderContext.currentLocale());
+            if (builds != null) {
+                return builds.isEmpty() ? 0 : builds.get(0).getBuildTime();
+            }
         }
-        BuildInfo latest = builds.get(0);
-        return String.valueOf(latest.getBuildTime());
+        return getSortKey(JobStatusCache.get().getSnapshot(job));
+    }
+
+    /** Same as the start time of the first of {@link #computeBuilds(JobStatusSnapshot, RenderBatch)}. */
+    long getSortKey(JobStatusSnapshot snapshot) {
+        JobStatusSnapshot.Build first =
+                getFirstBuild(snapshot, isFailedShownOnlyIfLast(), isUnstableShownOnlyIfLast());
+        return first == null ? 0 : first.getTimestamp();
+    }
+
+    /** Same as {@link #computeBuilds(JobStatusSnapshot, RenderBatch)} being empty. */
+    boolean isBuildsEmpty(JobStatusSnapshot snapshot) {
+        return snapshot.getLastStableBuild() == null
+                && snapshot.getLastAbortedBuild() == null
+                && !isFailedShown(snapshot, isFailedShownOnlyIfLast())
+                && !isUnstableShown(snapshot, isUnstableShownOnlyIfLast());
+    }
+
+    /** The build {@link #getBuilds} would show first, without creating any of the others. */
+    private static JobStatusSnapshot.Build getFirstBuild(
+            JobStatusSnapshot snapshot, boolean isFailedShownOnlyIfLast, boolean isUnstableShownOnlyIfLast) {
+        JobStatusSnapshot.Build first = null;
+        if (isFailedShown(snapshot, isFailedShownOnlyIfLast)) {
+            first = snapshot.getLastFailedBuild();
+        }
+        if (isUnstableShown(snapshot, isUnstableShownOnlyIfLast)) {
+            first = newer(first, snapshot.getLastUnstableBuild());
+        }
+        first = newer(first, snapshot.getLastStableBuild());
+        if (first == null) {
+            first = snapshot.getLastAbortedBuild();
+        }
+        return first;
+    }
+
+    private static boolean isFailedShown(JobStatusSnapshot snapshot, boolean isFailedShownOnlyIfLast) {
+        JobStatusSnapshot.Build lastFailed = snapshot.getLastFailedBuild();
+        return lastFailed != null
+                && (!isFailedShownOnlyIfLast || isSameBuild(lastFailed, snapshot.getLastCompletedBuild()));
+    }
+
+    private static boolean isUnstableShown(JobStatusSnapshot snapshot, boolean isUnstableShownOnlyIfLast) {
+        JobStatusSnapshot.Build lastUnstable = snapshot.getLastUnstableBuild();
+        return lastUnstable != null
+                && (!isUnstableShownOnlyIfLast || isSameBuild(lastUnstable, snapshot.getLastCompletedBuild()));
+    }
+
+    private static boolean isSameBuild(JobStatusSnapshot.Build build, JobStatusSnapshot.Build other) {
+        return other != null && build.getNumber() == other.getNumber();
+    }
+
+    private static JobStatusSnapshot.Build newer(JobStatusSnapshot.Build build, JobStatusSnapshot.Build other) {
+        if (build == null || (other != null && other.getNumber() > build.getNumber())) {
+            return other;
+        }
+        return build;
     }
 
     public int getHideDays() {
         return 0;
     }
 
+    /** Like {@link #getColumnSortKey}, this does not compute the builds of the cell. */
     public boolean isBuildsEmpty(Job<?, ?> job) {
-        // TODO -- make much more efficient
-        return getBuilds(job, Locale.getDefault()).isEmpty();
+        ColumnRenderContext context = ColumnRenderContext.current();
+        if (context != null) {
+            List<BuildInfo> builds = context.peekBuilds(this, job, ColumnRenderContext.currentLocale());
+            if (builds != null) {
+                return builds.isEmpty();
+            }
+        }
+        return isBuildsEmpty(JobStatusCache.get().getSnapshot(job));
+    }
+
+    /**
+     * Whether the cell shows the statuses the job had before they were read again, see {@link
+     * CompactColumnsConfiguration#getMaxStaleness()}. Without it, statuses from the {@link StatusIndex}
+     * are not marked either, every cell would be marked after a restart until the warm-up is done.
+     */
+    public boolean isPossiblyStale(Job<?, ?> job) {
+        return CompactColumnsConfiguration.get().getMaxStaleness() > 0 && JobStatusCache.get().isUnvalidated(job);
     }
 
+    /** Computed at most once per job and locale while rendering a request, see {@link ColumnRenderContext}. */
     public List<BuildInfo> getBuilds(Job<?, ?> job, Locale locale) {
+        ColumnRenderContext context = ColumnRenderContext.current();
+        if (context != null) {
+            List<BuildInfo> builds = context.peekBuilds(this, job, locale);
+            if (builds != null) {
+                // not timed, the metric is about computing builds
+                return builds;
+            }
+        }
+        long start = RenderMetrics.start();
+        try {
+            if (context == null) {
+                return computeBuilds(job, locale);
+            }
+            return context.getBuilds(this, job, locale);
+        } finally {
+            RenderMetrics.get().record(RenderMetrics.Operation.BUILDS, getClass(), start);
+        }
+    }
+
+    /**
+     * Computes the builds of all jobs of a view in one go, sharing everything the cells have in
+     * common, and remembers them for the rows of the current request. Items that are not jobs, like
+     * folders, are skipped. Large views are computed in parallel when enabled, see {@link
+     * CompactColumnsConfiguration#getParallelThreshold()}.
+     *
+     * @return the builds of each job, in the order of the items
+     */
+    public Map<Job<?, ?>, List<BuildInfo>> getViewBuilds(Collection<?> items, Locale locale) {
+        return getViewBuilds(items, locale, CompactColumnsConfiguration.get().getParallelThreshold());
+    }
+
+    /**
+     * Computes the builds of all rows before they are rendered, see {@link #getViewBuilds}. Skipped
+     * if the markup of the cells is reused, since most of them are not rendered again then.
+     */
+    public void prepareRows(Collection<?> items, Locale locale) {
+        if (!isCacheCells()) {
+            getViewBuilds(items, locale);
+        }
+    }
+
+    Map<Job<?, ?>, List<BuildInfo>> getViewBuilds(Collection<?> items, Locale locale, int parallelThreshold) {
+        long start = RenderMetrics.start();
+        try {
+            RenderBatch batch = RenderBatch.of(locale);
+            Set<Job<?, ?>> jobs = new LinkedHashSet<>();
+            for (Object item : items) {
+                if (item instanceof Job<?, ?> job) {
+                    jobs.add(job);
+                }
+            }
+            Map<Job<?, ?>, ColumnRenderContext.Cell> cells = new LinkedHashMap<>();
+            if (parallelThreshold > 0 && jobs.size() >= parallelThreshold) {
+                List<Job<?, ?>> list = new ArrayList<>(jobs);
+                List<ColumnRenderContext.Cell> results =
+                        ParallelStatuses.compute(list, job -> ColumnRenderContext.Cell.compute(this, job, batch));
+                for (int i = 0; i < list.size(); i++) {
+                    cells.put(list.get(i), results.get(i));
+                }
+            } else {
+                for (Job<?, ?> job : jobs) {
+                    cells.put(job, ColumnRenderContext.Cell.compute(this, job, batch));
+                }
+            }
+            ColumnRenderContext context = ColumnRenderContext.current();
+            if (context != null) {
+                context.putCells(this, cells, locale);
+            }
+            Map<Job<?, ?>, List<BuildInfo>> builds = new LinkedHashMap<>();
+            cells.forEach((job, cell) -> builds.put(job, cell.builds()));
+            return builds;
+        } finally {
+            RenderMetrics.get().record(RenderMetrics.Operation.VIEW_BUILDS, getClass(), start);
+        }
+    }
+
+    /**
+     * Computes the builds of a cell, for single cells and for {@link #getViewBuilds} alike. The
+     * cells of a view share what they have in common, see {@link RenderBatch}.
+     */
+    protected List<BuildInfo> computeBuilds(Job<?, ?> job, Locale locale) {
+        return computeBuilds(job, RenderBatch.current(locale));
+    }
+
+    List<BuildInfo> computeBuilds(Job<?, ?> job, RenderBatch batch) {
+        return computeBuilds(JobStatusCache.get().getSnapshot(job), batch);
+    }
+
+    List<BuildInfo> computeBuilds(JobStatusSnapshot snapshot, RenderBatch batch) {
+        if (isOnlyShowLastStatus()) {
+            BuildInfo newest = getNewestBuild(
+                    snapshot,
+                    batch,
+                    isFailedShownOnlyIfLast(),
+                    isUnstableShownOnlyIfLast(),
+                    isShowColorblindUnderlineHint(),
+                    timeAgoType);
+            return newest == null ? Collections.emptyList() : Collections.singletonList(newest);
+        }
         return getBuilds(
-                job,
-                locale,
+                snapshot,
+                batch,
                 isFailedShownOnlyIfLast(),
                 isUnstableShownOnlyIfLast(),
                 isOnlyShowLastStatus(),
@@ -506,23 +805,137 @@ public abstract class AbstractStatusesColumn extends AbstractCompactColumn {
     }
 
     public final String getToolTip(BuildInfo build, Locale locale) {
-        return getBuildDescriptionToolTip(build, locale);
+        long start = RenderMetrics.start();
+        try {
+            return getBuildDescriptionToolTip(build, locale);
+        } finally {
+            RenderMetrics.get().record(RenderMetrics.Operation.BUILD_TOOL_TIP, getClass(), start);
+        }
     }
 
     public String getTimeAgoTypeString() {
         return timeAgoTypeString;
     }
 
+    /** Whether the tool-tips are left out of the page, see {@link AbstractCompactColumnDescriptor#doToolTip}. */
+    public boolean isLazyToolTips() {
+        return CompactColumnsConfiguration.get().isLazyToolTips();
+    }
+
+    /** Whether the times of the builds are formatted by the browser, see {@code time-ago.js}. */
+    public boolean isClientSideTimes() {
+        return CompactColumnsConfiguration.get().isClientSideTimes();
+    }
+
+    /** Whether the markup of the cells is reused, see {@link RenderedCellCache}. */
+    public boolean isCacheCells() {
+        return CompactColumnsConfiguration.get().isCacheCells();
+    }
+
+    /** @return the markup of the cell as rendered before, or null if it has to be rendered */
+    public String getCachedCell(Job<?, ?> job, Locale locale, String jobBaseUrl, String toolTipUrl) {
+        if (ColumnRenderContext.current() == null) {
+            return null;
+        }
+        return RenderedCellCache.get()
+                .get(
+                        getCellKey(job, locale, jobBaseUrl, toolTipUrl),
+                        JobStatusCache.get().getSnapshot(job),
+                        System.currentTimeMillis());
+    }
+
+    /**
+     * Remembers the markup of the cell, rendered from the builds of the current request.
+     *
+     * @return the markup
+     */
+    public String cacheCell(Job<?, ?> job, Locale locale, String jobBaseUrl, String toolTipUrl, String html) {
+        ColumnRenderContext context = ColumnRenderContext.current();
+        if (context != null) {
+            ColumnRenderContext.Cell cell = context.getCell(this, job, locale);
+            RenderedCellCache.get()
+                    .put(
+                            getCellKey(job, locale, jobBaseUrl, toolTipUrl),
+                            cell.snapshot(),
+                            System.currentTimeMillis(),
+                            getCellExpiry(cell.builds(), toolTipUrl == null),
+                            html);
+        }
+        return html;
+    }
+
+    private RenderedCellCache.Key getCellKey(Job<?, ?> job, Locale locale, String jobBaseUrl, String toolTipUrl) {
+        return new RenderedCellCache.Key(
+                this, job, locale, jobBaseUrl, toolTipUrl, isCssClasses(), isClientSideTimes());
+    }
+
+    /**
+     * @return the time from which on the cell reads differently, because one of its time-ago strings
+     *     does or because one of its builds is hidden
+     */
+    private long getCellExpiry(List<BuildInfo> builds, boolean hasToolTips) {
+        boolean hasTimeAgoStrings = !isClientSideTimes() || hasToolTips;
+        long maxDiff = getHideDays() * ONE_DAY_MS;
+        long expiry = Long.MAX_VALUE;
+        for (int i = 0; i < builds.size(); i++) {
+            BuildInfo build = builds.get(i);
+            if (hasTimeAgoStrings) {
+                expiry = Math.min(expiry, build.getTimeAgoExpiry());
+            }
+            if (maxDiff > 0 && i > 0) {
+                // the first build is always shown, the others only until they are older than that
+                expiry = Math.min(expiry, build.getBuildTime() + maxDiff + 1);
+            }
+        }
+        return expiry;
+    }
+
+    /** @return the message patterns of the time units as a JSON array, for {@code time-ago.js} */
+    public String getTimeUnitPatterns(Locale locale) {
+        return JSONArray.fromObject(ShortTimestamp.getPatterns(locale)).toString();
+    }
+
     public static enum TimeAgoType {
         DIFF,
         PREFER_DATES,
         PREFER_DATE_TIME
     }
 
+    private record FormatterKey(Chronology chronology, Locale locale, FormatStyle dateStyle, FormatStyle timeStyle) {}
+
     public abstract static class AbstractCompactColumnDescriptor extends ListViewColumnDescriptor {
         @Override
         public boolean shownByDefault() {
             return false;
         }
+
+        /**
+         * The tool-tip of a single status link, loaded on demand when lazy tool-tips are enabled.
+         *
+         * @param timeAgoType the {@link AbstractStatusesColumn#getTimeAgoTypeString() time-ago type} of the column
+         * @param multiple whether the cell shows more than one build
+         */
+        @GET
+        public HttpResponse doToolTip(
+                @QueryParameter String job,
+                @QueryParameter int build,
+                @QueryParameter String timeAgoType,
+                @QueryParameter boolean multiple) {
+            // only finds jobs the user may see
+            Job<?, ?> item = Jenkins.get().getItemByFullName(job, Job.class);
+            if (item == null) {
+                return HttpResponses.notFound();
+            }
+            String toolTip = LazyToolTips.getToolTip(
+                    item,
+                    build,
+                    ColumnRenderContext.currentLocale(),
+                    LazyToolTips.toTimeAgoType(timeAgoType),
+                    multiple);
+            if (toolTip == null) {
+                return HttpResponses.notFound();
+            }
+            return HttpResponses.literalHtml(toolTip);
+        }
     }
 }
@@ -1,9 +1,14 @@
 package com.robestone.hudson.compactcolumns;
 
+import hudson.Util;
 import hudson.model.Run;
 import java.util.Locale;
 import java.util.Objects;
 
+/**
+ * One build of a status cell. The build itself is a {@link JobStatusSnapshot.Build}, usually shared
+ * with the snapshot of the job, so cells never keep a {@link Run} in memory.
+ */
 public class BuildInfo implements Comparable<BuildInfo> {
 
     private static final String STABLE_COLOR = "var(--success-color, green) !important";
@@ -12,16 +17,23 @@ public class BuildInfo implements Comparable<BuildInfo> {
     private static final String OTHER_COLOR = "var(--text-color-secondary, grey) !important";
 
     private final Run<?, ?> run;
+    private final JobStatusSnapshot.Build build;
     private String color;
     private String underlineStyle;
     private String timeAgoString;
-    private long buildTime;
+    private RenderBatch timeAgoBatch;
+    private AbstractStatusesColumn.TimeAgoType timeAgoType;
     private String status;
     private String urlPart;
     private boolean isFirst;
     private boolean isLatestBuild;
     private boolean multipleBuilds;
 
+    /**
+     * @deprecated use {@link #BuildInfo(JobStatusSnapshot.Build, String, String, String, String, boolean)},
+     *     this one keeps the run in memory for as long as the build info is
+     */
+    @Deprecated
     public BuildInfo(
             Run<?, ?> run,
             String color,
@@ -31,9 +43,25 @@ public class BuildInfo implements Comparable<BuildInfo> {
             String urlPart,
             boolean isLatestBuild) {
         this.run = Objects.requireNonNull(run, "BuildInfo needs a run");
+        this.build = new JobStatusSnapshot.Build(run.number, buildTime, run.getDuration(), run.getResult());
+        this.color = color;
+        this.underlineStyle = underlineStyle;
+        this.status = status;
+        this.urlPart = urlPart;
+        this.isLatestBuild = isLatestBuild;
+    }
+
+    public BuildInfo(
+            JobStatusSnapshot.Build build,
+            String color,
+            String underlineStyle,
+            String status,
+            String urlPart,
+            boolean isLatestBuild) {
+        this.run = null;
+        this.build = Objects.requireNonNull(build, "BuildInfo needs a build");
         this.color = color;
         this.underlineStyle = underlineStyle;
-        this.buildTime = buildTime;
         this.status = status;
         this.urlPart = urlPart;
         this.isLatestBuild = isLatestBuild;
@@ -55,15 +83,31 @@ public class BuildInfo implements Comparable<BuildInfo> {
         return OTHER_COLOR;
     }
 
+    /**
+     * @return the run, or null when rendered from a {@link JobStatusSnapshot}
+     * @deprecated use {@link #getNumber()}, loading the run is what the snapshots avoid
+     */
+    @Deprecated
     public Run<?, ?> getRun() {
         return run;
     }
 
+    public int getNumber() {
+        return build.getNumber();
+    }
+
     public String getColor() {
         return color;
     }
 
     public String getTimeAgoString() {
+        String timeAgoString = this.timeAgoString;
+        if (timeAgoString == null && timeAgoBatch != null) {
+            // racing threads format the same string
+            timeAgoString = AbstractStatusesColumn.getTimeAgoString(
+                    timeAgoBatch.locale, build.getTimestamp(), timeAgoBatch.now, multipleBuilds, timeAgoType);
+            this.timeAgoString = timeAgoString;
+        }
         return timeAgoString;
     }
 
@@ -84,7 +128,7 @@ public class BuildInfo implements Comparable<BuildInfo> {
     }
 
     public long getBuildTime() {
-        return buildTime;
+        return build.getTimestamp();
     }
 
     public boolean isMultipleBuilds() {
@@ -100,16 +144,17 @@ public class BuildInfo implements Comparable<BuildInfo> {
     }
 
     public String getStartedAgo(Locale locale) {
-        return Messages._startedAgo(timeAgoString).toString(locale);
+        return Messages._startedAgo(getTimeAgoString()).toString(locale);
     }
 
     public String getBuiltAt(Locale locale) {
-        String time = AbstractStatusesColumn.getBuildTimeString(buildTime, locale);
+        String time = AbstractStatusesColumn.getBuildTimeString(build.getTimestamp(), locale);
         return Messages._builtAt(time).toString(locale);
     }
 
     public String getLastedDuration(Locale locale) {
-        return Messages._lastedDuration(run.getDurationString()).toString(locale);
+        // the statuses only ever show completed builds
+        return Messages._lastedDuration(Util.getTimeSpanString(build.getDuration())).toString(locale);
     }
 
     public String getFontWeight() {
@@ -137,10 +182,31 @@ public class BuildInfo implements Comparable<BuildInfo> {
 
     public void setTimeAgoString(String timeAgoString) {
         this.timeAgoString = timeAgoString;
+        this.timeAgoBatch = null;
     }
+
+    /**
+     * @return the time from which on {@link #getTimeAgoString()} would read differently, {@link
+     *     Long#MAX_VALUE} if never, or {@link Long#MIN_VALUE} if that is not known
+     */
+    long getTimeAgoExpiry() {
+        RenderBatch batch = timeAgoBatch;
+        if (batch == null) {
+            return Long.MIN_VALUE;
+        }
+        return AbstractStatusesColumn.getTimeAgoExpiry(build.getTimestamp(), batch.now, multipleBuilds, timeAgoType);
+    }
+
+    /** The time-ago string is formatted from these when it is first asked for. */
+    void setTimeAgo(RenderBatch batch, AbstractStatusesColumn.TimeAgoType timeAgoType) {
+        this.timeAgoString = null;
+        this.timeAgoBatch = batch;
+        this.timeAgoType = timeAgoType;
+    }
+
     /** Sort by build number. */
     public int compareTo(BuildInfo that) {
-        return Integer.compare(that.run.number, this.run.number);
+        return Integer.compare(that.getNumber(), getNumber());
     }
 
     @Override
@@ -148,12 +214,46 @@ public class BuildInfo implements Comparable<BuildInfo> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         BuildInfo buildInfo = (BuildInfo) o;
-        return run.number == buildInfo.run.number;
+        return getNumber() == buildInfo.getNumber();
     }
 
     @Override
     public int hashCode() {
-        return Integer.hashCode(run.number);
+        return Integer.hashCode(getNumber());
+    }
+
+    /** The classes of the plugin's stylesheet that do the same as the inline styles of the link. */
+    public String getCssClass() {
+        String classes = "compact-columns-status " + getColorClass(color);
+        if (underlineStyle != null) {
+            classes += " " + getUnderlineClass(underlineStyle);
+        }
+        if (isLatestBuild && multipleBuilds) {
+            classes += " compact-columns-bold";
+        }
+        return classes;
+    }
+
+    static String getColorClass(String color) {
+        if (STABLE_COLOR.equals(color)) {
+            return "compact-columns-stable";
+        } else if (UNSTABLE_COLOR.equals(color)) {
+            return "compact-columns-unstable";
+        } else if (FAILED_COLOR.equals(color)) {
+            return "compact-columns-failed";
+        } else {
+            return "compact-columns-other";
+        }
+    }
+
+    static String getUnderlineClass(String underlineStyle) {
+        if (AbstractStatusesColumn.STABLE_UNDERLINE_STYLE.equals(underlineStyle)) {
+            return "compact-columns-hint-none";
+        } else if (AbstractStatusesColumn.FAILED_UNDERLINE_STYLE.equals(underlineStyle)) {
+            return "compact-columns-hint-solid";
+        } else {
+            return "compact-columns-hint-dashed";
+        }
     }
 
     public String getTextDecoration() {
@@ -0,0 +1,178 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import jenkins.model.lazy.LazyBuildMixIn;
+import jenkins.util.SystemProperties;
+
+/**
+ * Reads what a {@link JobStatusSnapshot.Build} needs straight from the {@code build.xml} of a build
+ * Jenkins has not loaded yet, instead of loading the whole build with all of its actions.
+ *
+ * <p>The numbers of the builds come from the {@code permalinks} file Jenkins keeps in the builds
+ * directory of the job. Whenever something is not as expected, the build is looked up the normal
+ * way instead.
+ */
+final class BuildRecordReader {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildRecordReader.class.getName());
+
+    static final boolean DISABLED = SystemProperties.getBoolean(BuildRecordReader.class.getName() + ".disabled");
+
+    /** Same as {@code PeepholePermalink.RESOLVES_TO_NONE}. */
+    private static final int NONE = -1;
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private BuildRecordReader() {}
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * @return the build numbers of the permalinks of the job by name, empty if builds cannot be
+     *     read here because Jenkins would not tell whether they are loaded already
+     */
+    static Map<String, Integer> readPermalinks(Job<?, ?> job) {
+        if (DISABLED || !(job instanceof LazyBuildMixIn.LazyLoadingJob)) {
+            return Map.of();
+        }
+        try {
+            return parsePermalinks(
+                    Files.readAllLines(new File(job.getBuildDir(), "permalinks").toPath(), StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            return Map.of();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Cannot read the permalinks of " + job.getFullName(), e);
+            return Map.of();
+        }
+    }
+
+    static Map<String, Integer> parsePermalinks(List<String> lines) {
+        Map<String, Integer> permalinks = new HashMap<>();
+        for (String line : lines) {
+            int space = line.indexOf(' ');
+            if (space > 0) {
+                try {
+                    permalinks.put(line.substring(0, space), Integer.parseInt(line.substring(space + 1).trim()));
+                } catch (NumberFormatException e) {
+                    // not ours to fix, the permalink is looked up the normal way
+                }
+            }
+        }
+        return permalinks;
+    }
+
+    /**
+     * The build a permalink points to, without loading it if it is not loaded yet.
+     *
+     * @param permalinks from {@link #readPermalinks}
+     * @param resolve the normal way of looking up the permalink, for when the build cannot be read
+     */
+    static JobStatusSnapshot.Build resolve(
+            Job<?, ?> job,
+            Map<String, Integer> permalinks,
+            String permalink,
+            Function<Job<?, ?>, Run<?, ?>> resolve) {
+        Integer number = permalinks.get(permalink);
+        if (number != null && number != NONE) {
+            Run<?, ?> loaded = getLoadedBuild(job, number);
+            if (loaded != null) {
+                return JobStatusSnapshot.Build.of(loaded);
+            }
+            SlowCellTracer.noteBuildRead();
+            JobStatusSnapshot.Build build = read(job, number);
+            if (build != null) {
+                return build;
+            }
+            // Jenkins loads the build instead, which is not counted again
+        }
+        return JobStatusSnapshot.Build.of(resolve.apply(job));
+    }
+
+    private static Run<?, ?> getLoadedBuild(Job<?, ?> job, int number) {
+        LazyBuildMixIn<?, ?> mixIn = ((LazyBuildMixIn.LazyLoadingJob<?, ?>) job).getLazyBuildMixIn();
+        return mixIn._getRuns().getLoadedBuilds().get(number);
+    }
+
+    /** @return the build, or null if its record could not be read */
+    static JobStatusSnapshot.Build read(Job<?, ?> job, int number) {
+        File file = new File(new File(job.getBuildDir(), Integer.toString(number)), "build.xml");
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            return read(in, number);
+        } catch (IOException | XMLStreamException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Cannot read " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Looks only at the elements right below the root, skipping everything else like the actions,
+     * and stops as soon as it has what it needs.
+     *
+     * @return the build, or null if the record has no timestamp or no result, which the builds of
+     *     permalinks always have
+     */
+    static JobStatusSnapshot.Build read(InputStream in, int number) throws XMLStreamException {
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+        try {
+            Long timestamp = null;
+            Result result = null;
+            Long duration = null;
+            int depth = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (++depth != 2) {
+                        continue;
+                    }
+                    switch (reader.getLocalName()) {
+                        case "timestamp" -> timestamp = Long.parseLong(reader.getElementText().trim());
+                        case "result" -> result = Result.fromString(reader.getElementText().trim());
+                        case "duration" -> duration = Long.parseLong(reader.getElementText().trim());
+                        default -> {
+                            continue;
+                        }
+                    }
+                    // getElementText() ends on the end of the element
+                    depth--;
+                    if (timestamp != null && result != null && duration != null) {
+                        break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+            if (timestamp == null || result == null) {
+                return null;
+            }
+            return new JobStatusSnapshot.Build(number, timestamp, duration == null ? 0 : duration, result);
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.model.Job;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest2;
+
+/**
+ * Remembers the builds computed for each status cell while a single request is rendered.
+ *
+ * <p>A status cell asks its column for the sort data, for the empty check and for the actual
+ * builds. Without this, each of those would run the whole {@link AbstractStatusesColumn#getBuilds}
+ * pipeline again. The builds of all rows may also be put here up front, see {@link
+ * AbstractStatusesColumn#getViewBuilds}.
+ */
+final class ColumnRenderContext {
+
+    private static final String ATTRIBUTE = ColumnRenderContext.class.getName();
+
+    private final Map<Key, Cell> cells = new ConcurrentHashMap<>();
+
+    private ColumnRenderContext() {}
+
+    /**
+     * @return the context of the current request, or null when not called from a request (e.g.
+     *     from a CLI command or a unit test)
+     */
+    static ColumnRenderContext current() {
+        StaplerRequest2 request = Stapler.getCurrentRequest2();
+        if (request == null) {
+            return null;
+        }
+        ColumnRenderContext context = (ColumnRenderContext) request.getAttribute(ATTRIBUTE);
+        if (context == null) {
+            context = new ColumnRenderContext();
+            request.setAttribute(ATTRIBUTE, context);
+        }
+        return context;
+    }
+
+    /** The locale of the current request, so every part of a cell shares the same cache entry. */
+    static Locale currentLocale() {
+        StaplerRequest2 request = Stapler.getCurrentRequest2();
+        if (request == null) {
+            return Locale.getDefault();
+        }
+        return request.getLocale();
+    }
+
+    List<BuildInfo> getBuilds(AbstractStatusesColumn column, Job<?, ?> job, Locale locale) {
+        return getCell(column, job, locale).builds();
+    }
+
+    Cell getCell(AbstractStatusesColumn column, Job<?, ?> job, Locale locale) {
+        return cells.computeIfAbsent(new Key(column, job, locale), key -> Cell.compute(column, job, RenderBatch.of(locale)));
+    }
+
+    /** @return the builds if they were computed already, null otherwise */
+    List<BuildInfo> peekBuilds(AbstractStatusesColumn column, Job<?, ?> job, Locale locale) {
+        Cell cell = cells.get(new Key(column, job, locale));
+        return cell == null ? null : cell.builds();
+    }
+
+    void putCells(AbstractStatusesColumn column, Map<Job<?, ?>, Cell> jobCells, Locale locale) {
+        jobCells.forEach((job, cell) -> cells.putIfAbsent(new Key(column, job, locale), cell));
+    }
+
+    private record Key(AbstractStatusesColumn column, Job<?, ?> job, Locale locale) {}
+
+    /**
+     * The builds of a cell, and the snapshot of the job from right before they were computed. The
+     * builds may come from a newer snapshot if a build completed meanwhile, never from an older one.
+     */
+    record Cell(JobStatusSnapshot snapshot, List<BuildInfo> builds) {
+
+        /**
+         * Goes through {@link AbstractStatusesColumn#computeBuilds(Job, Locale)}, so a subclass that
+         * overrides it is used for single cells and for all rows of a view alike.
+         */
+        static Cell compute(AbstractStatusesColumn column, Job<?, ?> job, RenderBatch batch) {
+            SlowCellTracer.Span span = SlowCellTracer.get().start();
+            try {
+                JobStatusSnapshot snapshot = JobStatusCache.get().getSnapshot(job);
+                return new Cell(snapshot, batch.with(() -> column.computeBuilds(job, batch.locale)));
+            } finally {
+                SlowCellTracer.get().end(span, job, column.getClass(), SlowCellTracer.Part.BUILDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import jenkins.model.GlobalConfiguration;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/** Settings that apply to all compact columns, in contrast to the ones configured per view. */
+@Extension
+@Symbol("compactColumns")
+public class CompactColumnsConfiguration extends GlobalConfiguration {
+
+    private boolean lazyToolTips;
+    private int parallelThreshold;
+    private boolean cssClasses;
+    private boolean clientSideTimes;
+    private boolean cacheCells;
+    private int maxStaleness;
+
+    public CompactColumnsConfiguration() {
+        load();
+    }
+
+    public static CompactColumnsConfiguration get() {
+        return ExtensionList.lookupSingleton(CompactColumnsConfiguration.class);
+    }
+
+    public boolean isLazyToolTips() {
+        return lazyToolTips;
+    }
+
+    @DataBoundSetter
+    public void setLazyToolTips(boolean lazyToolTips) {
+        this.lazyToolTips = lazyToolTips;
+        save();
+    }
+
+    /**
+     * @return the number of jobs from which on the statuses of a view are computed in parallel, 0
+     *     if they are always computed by the request thread
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    @DataBoundSetter
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = Math.max(0, parallelThreshold);
+        save();
+    }
+
+    public boolean isCssClasses() {
+        return cssClasses;
+    }
+
+    @DataBoundSetter
+    public void setCssClasses(boolean cssClasses) {
+        this.cssClasses = cssClasses;
+        save();
+    }
+
+    public boolean isClientSideTimes() {
+        return clientSideTimes;
+    }
+
+    @DataBoundSetter
+    public void setClientSideTimes(boolean clientSideTimes) {
+        this.clientSideTimes = clientSideTimes;
+        save();
+    }
+
+    public boolean isCacheCells() {
+        return cacheCells;
+    }
+
+    @DataBoundSetter
+    public void setCacheCells(boolean cacheCells) {
+        this.cacheCells = cacheCells;
+        save();
+    }
+
+    /**
+     * @return how many seconds old the statuses of a job may be to be shown while they are read again
+     *     in the background, 0 if the request always waits for them
+     */
+    public int getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    @DataBoundSetter
+    public void setMaxStaleness(int maxStaleness) {
+        this.maxStaleness = Math.max(0, maxStaleness);
+        save();
+    }
+}
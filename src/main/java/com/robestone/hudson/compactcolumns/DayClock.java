@@ -0,0 +1,76 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The start and the end of the current day in a time zone, so telling whether a time is today
+ * takes two comparisons instead of two {@link java.util.Calendar}s. The day is computed again only
+ * once it is over.
+ *
+ * <p>Unlike comparing the day of the year, this does not take the same day of another year for
+ * today, and it knows about days that are shorter or longer because of daylight saving time.
+ */
+final class DayClock {
+
+    private static final Map<ZoneId, DayClock> CLOCKS = new ConcurrentHashMap<>();
+
+    /** Looking up the default time zone clones it, so it is only looked up again along with the day. */
+    private static volatile DayClock systemDefault = of(ZoneId.systemDefault());
+
+    private final ZoneId zone;
+    private volatile Day day;
+
+    private DayClock(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    static DayClock of(ZoneId zone) {
+        return CLOCKS.computeIfAbsent(zone, DayClock::new);
+    }
+
+    /** The clock of {@link ZoneId#systemDefault()}, which is what dates are formatted in. */
+    static DayClock systemDefault() {
+        DayClock clock = systemDefault;
+        Day day = clock.day;
+        if (day != null && day.contains(System.currentTimeMillis())) {
+            return clock;
+        }
+        clock = of(ZoneId.systemDefault());
+        systemDefault = clock;
+        return clock;
+    }
+
+    /** @return whether the time is on the same day as {@code now} */
+    boolean isToday(long time, long now) {
+        return getDay(now).contains(time);
+    }
+
+    /** @return the start of the day after the one of {@code now} */
+    long getEndOfDay(long now) {
+        return getDay(now).end;
+    }
+
+    private Day getDay(long now) {
+        Day day = this.day;
+        if (day == null || !day.contains(now)) {
+            // racing threads compute the same day
+            LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(now), zone);
+            day = new Day(
+                    date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+            this.day = day;
+        }
+        return day;
+    }
+
+    private record Day(long start, long end) {
+        boolean contains(long time) {
+            return time >= start && time < end;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.markup.MarkupFormatter;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+/**
+ * Job descriptions translated by the markup formatter, for the tool-tips of {@link JobNameColorColumn}.
+ *
+ * <p>An entry is only used while the description of the job and the kind of markup formatter are the
+ * ones it was translated from. Entries of a job are dropped when the job is reconfigured, and all of
+ * them when the global configuration, which holds the markup formatter, is saved.
+ */
+public final class DescriptionCache {
+
+    /** As many jobs as {@link JobStatusCache} holds, a view with more jobs than entries gets no hits at all. */
+    static final int DEFAULT_MAX_SIZE =
+            SystemProperties.getInteger(DescriptionCache.class.getName() + ".maxSize", 10000);
+
+    private static final DescriptionCache INSTANCE = new DescriptionCache(DEFAULT_MAX_SIZE);
+
+    private final LruCache<Job<?, ?>, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    DescriptionCache(int maxSize) {
+        this.entries = new LruCache<>(maxSize);
+    }
+
+    public static DescriptionCache get() {
+        return INSTANCE;
+    }
+
+    /** Same as translating the description with the markup formatter of Jenkins. */
+    public String translate(Job<?, ?> job) throws IOException {
+        return translate(job, Jenkins.get().getMarkupFormatter());
+    }
+
+    String translate(Job<?, ?> job, MarkupFormatter formatter) throws IOException {
+        String description = job.getDescription();
+        int descriptionHash = Objects.hashCode(description);
+        Entry entry = entries.get(job);
+        if (entry != null
+                && entry.descriptionHash == descriptionHash
+                && Objects.equals(entry.description, description)
+                && entry.formatter == formatter.getClass()) {
+            hits.increment();
+            return entry.html;
+        }
+        misses.increment();
+        String html = formatter.translate(description);
+        entries.put(job, new Entry(descriptionHash, description, formatter.getClass(), html));
+        return html;
+    }
+
+    void invalidate(Item item) {
+        if (item instanceof Job) {
+            entries.remove((Job<?, ?>) item);
+        }
+    }
+
+    void invalidateAll() {
+        entries.clear();
+    }
+
+    boolean isCached(Job<?, ?> job) {
+        return entries.get(job) != null;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /** @return the share of translations that came from the cache, between 0 and 1 */
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** The description is part of the entry so that equal hashes of different descriptions never match. */
+    private record Entry(
+            int descriptionHash, String description, Class<? extends MarkupFormatter> formatter, String html) {}
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onUpdated(Item item) {
+            get().invalidate(item);
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            get().invalidate(item);
+        }
+
+        @Override
+        public void onLoaded() {
+            get().invalidateAll();
+        }
+    }
+
+    @Extension
+    public static final class SaveableListenerImpl extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Jenkins) {
+                // the markup formatter may have been changed or reconfigured
+                get().invalidateAll();
+            }
+        }
+    }
+}
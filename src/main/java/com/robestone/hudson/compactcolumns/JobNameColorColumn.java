@@ -7,9 +7,7 @@ import hudson.model.Job;
 import hudson.model.Result;
 import hudson.model.Run;
 import java.io.IOException;
-import java.util.List;
 import java.util.Locale;
-import jenkins.model.Jenkins;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
 
@@ -29,72 +27,103 @@ public class JobNameColorColumn extends AbstractCompactColumn {
     }
 
     public String getStyle(Job job) {
-        Result result = null;
+        long start = RenderMetrics.start();
+        try {
+            Result result = getLastResult(job);
+            String style = "";
+            if (showColor) {
+                style += ("color: " + getColor(result) + ";");
+            }
+            if (isShowColorblindUnderlineHint()) {
+                style += ("text-decoration: none; border-bottom: " + getUnderline(result) + ";");
+            }
+            return style;
+        } finally {
+            RenderMetrics.get().record(RenderMetrics.Operation.JOB_STYLE, getClass(), start);
+        }
+    }
+
+    /** Same as {@link #getStyle(Job)}, as classes of the plugin's stylesheet. */
+    public String getCssClass(Job job) {
+        long start = RenderMetrics.start();
+        try {
+            Result result = getLastResult(job);
+            if (showColor && isShowColorblindUnderlineHint()) {
+                return BuildInfo.getColorClass(getColor(result)) + " "
+                        + BuildInfo.getUnderlineClass(getUnderline(result));
+            } else if (showColor) {
+                return BuildInfo.getColorClass(getColor(result));
+            } else if (isShowColorblindUnderlineHint()) {
+                return BuildInfo.getUnderlineClass(getUnderline(result));
+            }
+            return "";
+        } finally {
+            RenderMetrics.get().record(RenderMetrics.Operation.JOB_STYLE, getClass(), start);
+        }
+    }
+
+    private static Result getLastResult(Job job) {
         if (job != null) {
             Run run = job.getLastBuild();
             if (run != null) {
-                result = run.getResult();
+                return run.getResult();
             }
         }
-        String color;
-        String underline;
-        if (result == null) {
-            color = BuildInfo.getOtherColor();
-            underline = AbstractStatusesColumn.OTHER_UNDERLINE_STYLE;
-        } else if (Result.ABORTED.equals(result)) {
-            color = BuildInfo.getOtherColor();
-            underline = AbstractStatusesColumn.OTHER_UNDERLINE_STYLE;
-        } else if (Result.FAILURE.equals(result)) {
-            color = BuildInfo.getFailedColor();
-            underline = AbstractStatusesColumn.FAILED_UNDERLINE_STYLE;
-        } else if (Result.NOT_BUILT.equals(result)) {
-            color = BuildInfo.getOtherColor();
-            underline = AbstractStatusesColumn.OTHER_UNDERLINE_STYLE;
+        return null;
+    }
+
+    private static String getColor(Result result) {
+        if (Result.FAILURE.equals(result)) {
+            return BuildInfo.getFailedColor();
         } else if (Result.SUCCESS.equals(result)) {
-            color = BuildInfo.getStableColor();
-            underline = AbstractStatusesColumn.STABLE_UNDERLINE_STYLE;
+            return BuildInfo.getStableColor();
         } else if (Result.UNSTABLE.equals(result)) {
-            color = BuildInfo.getUnstableColor();
-            underline = AbstractStatusesColumn.UNSTABLE_UNDERLINE_STYLE;
+            return BuildInfo.getUnstableColor();
         } else {
-            color = BuildInfo.getOtherColor();
-            underline = AbstractStatusesColumn.OTHER_UNDERLINE_STYLE;
+            // not built yet, running, aborted or not built
+            return BuildInfo.getOtherColor();
         }
-        String style = "";
-        if (showColor) {
-            style += ("color: " + color + ";");
-        }
-        if (isShowColorblindUnderlineHint()) {
-            style += ("text-decoration: none; border-bottom: " + underline + ";");
+    }
+
+    private static String getUnderline(Result result) {
+        if (Result.FAILURE.equals(result)) {
+            return AbstractStatusesColumn.FAILED_UNDERLINE_STYLE;
+        } else if (Result.SUCCESS.equals(result)) {
+            return AbstractStatusesColumn.STABLE_UNDERLINE_STYLE;
+        } else if (Result.UNSTABLE.equals(result)) {
+            return AbstractStatusesColumn.UNSTABLE_UNDERLINE_STYLE;
+        } else {
+            return AbstractStatusesColumn.OTHER_UNDERLINE_STYLE;
         }
-        return style;
     }
 
     public String getToolTip(Job job, Locale locale) throws IOException {
-        StringBuilder tip = new StringBuilder();
-        if (showDescription) {
-            String desc = Jenkins.get().getMarkupFormatter().translate(job.getDescription());
-            if (!desc.isBlank()) {
-                tip.append(desc);
+        long start = RenderMetrics.start();
+        try {
+            StringBuilder tip = new StringBuilder();
+            if (showDescription) {
+                String desc = DescriptionCache.get().translate(job);
+                if (!desc.isBlank()) {
+                    tip.append(desc);
+                }
             }
-        }
-        if (showLastBuild) {
-            // TODO could me much more efficient if we have a flag to get just the first build (will help
-            // with other TODO)
-            List<BuildInfo> builds = AbstractStatusesColumn.getBuilds(
-                    job, locale, false, false, true, isShowColorblindUnderlineHint(), TimeAgoType.DIFF, 0);
-            if (!builds.isEmpty()) {
-                BuildInfo build = builds.get(0);
-                String desc = AbstractStatusesColumn.getBuildDescriptionToolTip(build, locale);
-                if (!desc.isEmpty()) {
-                    if (!tip.isEmpty()) {
-                        tip.append("<hr/>");
+            if (showLastBuild) {
+                BuildInfo build = AbstractStatusesColumn.getNewestBuild(
+                        job, locale, false, false, isShowColorblindUnderlineHint(), TimeAgoType.DIFF);
+                if (build != null) {
+                    String desc = AbstractStatusesColumn.getBuildDescriptionToolTip(build, locale);
+                    if (!desc.isEmpty()) {
+                        if (!tip.isEmpty()) {
+                            tip.append("<hr/>");
+                        }
+                        tip.append(desc);
                     }
-                    tip.append(desc);
                 }
             }
+            return (!tip.isEmpty()) ? tip.toString() : null;
+        } finally {
+            RenderMetrics.get().record(RenderMetrics.Operation.JOB_TOOL_TIP, getClass(), start);
         }
-        return (!tip.isEmpty()) ? tip.toString() : null;
     }
 
     public boolean isShowColor() {
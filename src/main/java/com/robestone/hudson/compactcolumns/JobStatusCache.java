@@ -0,0 +1,420 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+/**
+ * Plugin-wide cache of {@link JobStatusSnapshot}s.
+ *
+ * <p>A snapshot is read from the permalinks of a job the first time the job is rendered, and from
+ * then on is updated from run events, so dashboards do not have to look at {@link Run} objects at
+ * all. Jobs are identified by instance, a renamed job keeps its builds and a re-created job with the
+ * same name does not see stale data.
+ *
+ * <p>Snapshots are also kept in the {@link StatusIndex}, so after a restart they are there before
+ * any build is loaded. Until {@link #validate} has compared them to the job, they may be out of date
+ * if builds were changed on disk meanwhile.
+ *
+ * <p>With {@link CompactColumnsConfiguration#getMaxStaleness()} set, a job whose snapshot is not
+ * cached is rendered with the snapshot it had last, if that is recent enough, and read again in the
+ * background, see {@link #isUnvalidated}.
+ */
+public final class JobStatusCache {
+
+    static final int DEFAULT_MAX_SIZE =
+            SystemProperties.getInteger(JobStatusCache.class.getName() + ".maxSize", 10000);
+
+    static final int REFRESH_THREADS =
+            SystemProperties.getInteger(JobStatusCache.class.getName() + ".refreshThreads", 2);
+
+    private static final Logger LOGGER = Logger.getLogger(JobStatusCache.class.getName());
+
+    /** More jobs than this waiting to be read again are read by the requests themselves. */
+    private static final int MAX_REFRESHES = 1000;
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    /** Some build changed during each of them, which only happens on a busy controller. */
+    private static final int MAX_VALIDATE_ATTEMPTS = 3;
+
+    private static final JobStatusCache INSTANCE = new JobStatusCache(DEFAULT_MAX_SIZE, true);
+
+    private final LruCache<Job<?, ?>, JobStatusSnapshot> snapshots;
+
+    private final boolean persistent;
+
+    /** Jobs with snapshots from the {@link StatusIndex} or {@link #lastKnown} not compared to the jobs yet. */
+    private final Set<Job<?, ?>> unvalidated = ConcurrentHashMap.newKeySet();
+
+    /** The snapshots that were dropped because they became outdated, only kept while stale ones may be shown. */
+    private final LruCache<Job<?, ?>, LastKnown> lastKnown;
+
+    /** Jobs waiting to be read again in the background. */
+    private final Set<Job<?, ?>> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final ThreadPoolExecutor refresher;
+
+    /**
+     * Bumped by every event, so a snapshot read from the job while a build completes concurrently is
+     * not stored over the newer state.
+     */
+    private final AtomicLong modifications = new AtomicLong();
+
+    JobStatusCache(int maxSize) {
+        this(maxSize, false);
+    }
+
+    JobStatusCache(int maxSize, boolean persistent) {
+        this.snapshots = new LruCache<>(maxSize);
+        this.lastKnown = new LruCache<>(maxSize);
+        this.persistent = persistent;
+        this.refresher = new ThreadPoolExecutor(
+                REFRESH_THREADS,
+                REFRESH_THREADS,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_REFRESHES),
+                JobStatusCache::newThread);
+        refresher.allowCoreThreadTimeOut(true);
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "Compact columns refresh");
+        thread.setDaemon(true);
+        thread.setContextClassLoader(JobStatusCache.class.getClassLoader());
+        return thread;
+    }
+
+    public static JobStatusCache get() {
+        return INSTANCE;
+    }
+
+    public JobStatusSnapshot getSnapshot(Job<?, ?> job) {
+        JobStatusSnapshot snapshot = snapshots.get(job);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        long modificationsBefore = modifications.get();
+        long maxStaleness = getMaxStaleness();
+        JobStatusSnapshot known = findLastKnown(job, maxStaleness);
+        if (known != null) {
+            JobStatusSnapshot concurrent = snapshots.putIfAbsent(job, known);
+            if (concurrent != null) {
+                return concurrent;
+            }
+            if (isUnmodifiedSince(modificationsBefore, job, known)) {
+                unvalidated.add(job);
+                if (maxStaleness > 0) {
+                    refresh(job);
+                }
+                return known;
+            }
+        }
+        snapshot = JobStatusSnapshot.of(job);
+        JobStatusSnapshot concurrent = snapshots.putIfAbsent(job, snapshot);
+        if (concurrent != null) {
+            return concurrent;
+        }
+        if (isUnmodifiedSince(modificationsBefore, job, snapshot)) {
+            unvalidated.remove(job);
+            persist(job.getFullName(), snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Checks, after a snapshot read from the job was stored, that no event came in since it was
+     * read. An event that came in before the snapshot was stored did not find it to update, so the
+     * snapshot is dropped again then, and read once more the next time it is needed.
+     */
+    private boolean isUnmodifiedSince(long modificationsBefore, Job<?, ?> job, JobStatusSnapshot stored) {
+        if (modifications.get() == modificationsBefore) {
+            return true;
+        }
+        snapshots.remove(job, stored);
+        return false;
+    }
+
+    /**
+     * The snapshot from the {@link StatusIndex}, or the one the job had before it was dropped.
+     *
+     * @param maxStaleness how old the snapshot may be in milliseconds, 0 if only the index is used,
+     *     whose snapshots are used no matter how old they are then
+     */
+    private JobStatusSnapshot findLastKnown(Job<?, ?> job, long maxStaleness) {
+        long now = System.currentTimeMillis();
+        StatusIndex index = getIndex();
+        if (index != null) {
+            String fullName = job.getFullName();
+            JobStatusSnapshot persisted = index.find(fullName);
+            if (persisted != null && (maxStaleness == 0 || now - index.getStaleSince(fullName) <= maxStaleness)) {
+                return persisted;
+            }
+        }
+        if (maxStaleness > 0) {
+            LastKnown last = lastKnown.get(job);
+            if (last != null && now - last.since() <= maxStaleness) {
+                return last.snapshot();
+            }
+        }
+        return null;
+    }
+
+    /** Validates the snapshot of the job in the background, unless that is already pending. */
+    private void refresh(Job<?, ?> job) {
+        if (!refreshing.add(job)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                    validate(job);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.FINE, "Cannot read the statuses of " + job.getFullName(), e);
+                } finally {
+                    refreshing.remove(job);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // too many already, the job stays unvalidated and is tried again when it is rendered next
+            refreshing.remove(job);
+        }
+    }
+
+    /**
+     * Reads the snapshot of the job from its permalinks again if it came from the {@link
+     * StatusIndex} or {@link #lastKnown}, and replaces it. The snapshot is replaced even if it was
+     * not out of date, so cells rendered from it are rendered again without being marked as stale.
+     */
+    void validate(Job<?, ?> job) {
+        for (int attempt = 0; attempt < MAX_VALIDATE_ATTEMPTS && unvalidated.contains(job); attempt++) {
+            long modificationsBefore = modifications.get();
+            JobStatusSnapshot live = JobStatusSnapshot.of(job);
+            if (modifications.get() == modificationsBefore) {
+                // before the snapshot is replaced, so no cell is rendered as stale from the new one
+                unvalidated.remove(job);
+                lastKnown.remove(job);
+                snapshots.put(job, live);
+                if (isUnmodifiedSince(modificationsBefore, job, live)) {
+                    persist(job.getFullName(), live);
+                }
+            }
+        }
+    }
+
+    void onStarted(Run<?, ?> run) {
+        modifications.incrementAndGet();
+        Job<?, ?> job = run.getParent();
+        // the snapshots of jobs that are not cached are outdated now
+        JobStatusSnapshot updated = snapshots.update(job, snapshot -> snapshot.withStarted(run));
+        if (updated == null) {
+            rememberPersisted(job);
+        }
+        persist(job.getFullName(), updated);
+    }
+
+    void onCompleted(Run<?, ?> run) {
+        modifications.incrementAndGet();
+        Job<?, ?> job = run.getParent();
+        JobStatusSnapshot updated = snapshots.update(job, snapshot -> snapshot.withCompleted(run));
+        if (updated == null) {
+            rememberPersisted(job);
+        }
+        persist(job.getFullName(), updated);
+    }
+
+    void onDeleted(Run<?, ?> run) {
+        modifications.incrementAndGet();
+        Job<?, ?> job = run.getParent();
+        JobStatusSnapshot snapshot = snapshots.get(job);
+        if (snapshot != null && snapshot.refersTo(run.number)) {
+            // the permalink moves to some older build we know nothing about
+            snapshots.remove(job);
+            remember(job, snapshot, unvalidated.remove(job) ? getStaleSince(job) : System.currentTimeMillis());
+        }
+        StatusIndex index = getIndex();
+        if (index != null) {
+            JobStatusSnapshot persisted = index.find(job.getFullName());
+            if (persisted != null && persisted.refersTo(run.number)) {
+                if (snapshot == null) {
+                    rememberPersisted(job);
+                }
+                index.remove(job.getFullName());
+            }
+        }
+    }
+
+    /** Keeps the dropped snapshot of a job for showing it while the job is read again, see {@link #findLastKnown}. */
+    private void remember(Job<?, ?> job, JobStatusSnapshot snapshot, long since) {
+        if (getMaxStaleness() > 0) {
+            LastKnown last = lastKnown.get(job);
+            lastKnown.put(job, new LastKnown(snapshot, last == null ? since : Math.min(since, last.since())));
+        }
+    }
+
+    private void rememberPersisted(Job<?, ?> job) {
+        StatusIndex index = getIndex();
+        JobStatusSnapshot persisted = index == null ? null : index.find(job.getFullName());
+        if (persisted != null) {
+            remember(job, persisted, getStaleSince(job));
+        }
+    }
+
+    /** @return since when the snapshot of the job in the index may be out of date */
+    private long getStaleSince(Job<?, ?> job) {
+        StatusIndex index = getIndex();
+        long since = index == null ? Long.MAX_VALUE : index.getStaleSince(job.getFullName());
+        return Math.min(since, System.currentTimeMillis());
+    }
+
+    /** Forgets about the item, and about all jobs inside of it if it is a folder. */
+    void invalidate(Item item) {
+        invalidate(item, item.getFullName());
+    }
+
+    /** @param fullName the name the item had, which differs from its current one after it was moved */
+    void invalidate(Item item, String fullName) {
+        modifications.incrementAndGet();
+        StatusIndex index = getIndex();
+        if (item instanceof Job) {
+            snapshots.remove((Job<?, ?>) item);
+            unvalidated.remove(item);
+            lastKnown.remove((Job<?, ?>) item);
+            if (index != null) {
+                index.remove(fullName);
+            }
+        }
+        if (item instanceof ItemGroup) {
+            String prefix = item.getFullName() + "/";
+            snapshots.removeIf(job -> job.getFullName().startsWith(prefix));
+            unvalidated.removeIf(job -> job.getFullName().startsWith(prefix));
+            lastKnown.removeIf(job -> job.getFullName().startsWith(prefix));
+            if (index != null) {
+                String oldPrefix = fullName + "/";
+                index.removeIf(name -> name.startsWith(oldPrefix));
+            }
+        }
+    }
+
+    /** Forgets about all jobs, the {@link StatusIndex} is still used until {@link #validate validated}. */
+    void invalidateAll() {
+        modifications.incrementAndGet();
+        snapshots.clear();
+        unvalidated.clear();
+        lastKnown.clear();
+    }
+
+    boolean isCached(Job<?, ?> job) {
+        return snapshots.get(job) != null;
+    }
+
+    /**
+     * Whether the snapshot of the job came from the {@link StatusIndex} or is one it had before and
+     * was not validated yet, so it may be out of date.
+     */
+    boolean isUnvalidated(Job<?, ?> job) {
+        return unvalidated.contains(job);
+    }
+
+    private StatusIndex getIndex() {
+        return persistent ? StatusIndex.get() : null;
+    }
+
+    /** @return how old a snapshot may be to be rendered while it is read again, in milliseconds, 0 if not at all */
+    private long getMaxStaleness() {
+        if (!persistent || Jenkins.getInstanceOrNull() == null) {
+            return 0;
+        }
+        return TimeUnit.SECONDS.toMillis(CompactColumnsConfiguration.get().getMaxStaleness());
+    }
+
+    /** For tests, waits until the jobs that are read again in the background are done. */
+    boolean awaitRefreshes(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!refreshing.isEmpty()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /** @param snapshot null if the job has no snapshot anymore */
+    private void persist(String fullName, JobStatusSnapshot snapshot) {
+        StatusIndex index = getIndex();
+        if (index == null) {
+            return;
+        }
+        if (snapshot != null) {
+            index.put(fullName, snapshot);
+        } else {
+            index.remove(fullName);
+        }
+    }
+
+    int size() {
+        return snapshots.size();
+    }
+
+    /** @param since when the snapshot may have become out of date */
+    private record LastKnown(JobStatusSnapshot snapshot, long since) {}
+
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onStarted(Run<?, ?> run, TaskListener listener) {
+            get().onStarted(run);
+        }
+
+        @Override
+        public void onCompleted(Run<?, ?> run, TaskListener listener) {
+            get().onCompleted(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            get().onDeleted(run);
+        }
+    }
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onDeleted(Item item) {
+            get().invalidate(item);
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            get().invalidate(item, oldFullName);
+        }
+
+        @Override
+        public void onLoaded() {
+            // startup or "reload configuration from disk", nothing we know is reliable anymore
+            get().invalidateAll();
+            StatusWarmUp.afterLoad();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable summary of the permalinks of a job, which is all the status columns need to render.
+ *
+ * <p>Once created, a snapshot never touches {@link Run} objects again, so rendering from it does not
+ * have to load any builds from disk. Snapshots are kept up to date by {@link JobStatusCache}.
+ */
+public final class JobStatusSnapshot {
+
+    static final int MAX_ABORTED_SCAN = 20;
+
+    private final Build lastBuild;
+    private final Build lastCompletedBuild;
+    private final Build lastFailedBuild;
+    private final Build lastUnstableBuild;
+    private final Build lastStableBuild;
+    private final Build lastAbortedBuild;
+
+    JobStatusSnapshot(
+            Build lastBuild,
+            Build lastCompletedBuild,
+            Build lastFailedBuild,
+            Build lastUnstableBuild,
+            Build lastStableBuild,
+            Build lastAbortedBuild) {
+        this.lastBuild = lastBuild;
+        this.lastCompletedBuild = lastCompletedBuild;
+        this.lastFailedBuild = lastFailedBuild;
+        this.lastUnstableBuild = lastUnstableBuild;
+        this.lastStableBuild = lastStableBuild;
+        this.lastAbortedBuild = lastAbortedBuild;
+    }
+
+    /**
+     * Reads the permalinks of the job, this is the only place where builds may get loaded. Builds that
+     * are not loaded yet are read from their build records where possible, see {@link BuildRecordReader}.
+     */
+    public static JobStatusSnapshot of(Job<?, ?> job) {
+        Map<String, Integer> permalinks = BuildRecordReader.readPermalinks(job);
+        Build lastFailedBuild =
+                BuildRecordReader.resolve(job, permalinks, "lastFailedBuild", Job::getLastFailedBuild);
+        Build lastUnstableBuild =
+                BuildRecordReader.resolve(job, permalinks, "lastUnstableBuild", Job::getLastUnstableBuild);
+        Build lastStableBuild =
+                BuildRecordReader.resolve(job, permalinks, "lastStableBuild", Job::getLastStableBuild);
+        Build lastCompletedBuild =
+                BuildRecordReader.resolve(job, permalinks, "lastCompletedBuild", Job::getLastCompletedBuild);
+        Build lastAbortedBuild = null;
+        if (!isShownByEveryColumn(lastFailedBuild, lastUnstableBuild, lastStableBuild, lastCompletedBuild)) {
+            // Jenkins has no permalink for this one, from now on it is maintained by withCompleted()
+            lastAbortedBuild = Build.of(scanLastAbortedBuild(job));
+        }
+        return new JobStatusSnapshot(
+                // the newest build is loaded anyway, for the status of the job
+                Build.of(job.getLastBuild()),
+                lastCompletedBuild,
+                lastFailedBuild,
+                lastUnstableBuild,
+                lastStableBuild,
+                lastAbortedBuild);
+    }
+
+    /**
+     * Whether every status column shows one of these builds, whichever builds it shows only if they are
+     * the last one. The last aborted build is only shown when there is nothing else, so it does not have
+     * to be looked for then.
+     */
+    static boolean isShownByEveryColumn(Build lastFailed, Build lastUnstable, Build lastStable, Build lastCompleted) {
+        return lastStable != null || isSame(lastFailed, lastCompleted) || isSame(lastUnstable, lastCompleted);
+    }
+
+    private static boolean isSame(Build build, Build other) {
+        return build != null && other != null && build.getNumber() == other.getNumber();
+    }
+
+    /** Looks at the most recent builds only, each of them might have to be loaded from disk. */
+    static Run<?, ?> scanLastAbortedBuild(Job<?, ?> job) {
+        long start = RenderMetrics.start();
+        try {
+            Run<?, ?> latest = job.getLastBuild();
+            int i = 0;
+            while (latest != null && i++ < MAX_ABORTED_SCAN) {
+                if (latest.getResult() == Result.ABORTED) {
+                    return latest;
+                }
+                latest = latest.getPreviousBuild();
+            }
+            return null;
+        } finally {
+            RenderMetrics.get().record(RenderMetrics.Operation.ABORTED_SCAN, job.getClass(), start);
+        }
+    }
+
+    public Build getLastBuild() {
+        return lastBuild;
+    }
+
+    public Build getLastCompletedBuild() {
+        return lastCompletedBuild;
+    }
+
+    public Build getLastFailedBuild() {
+        return lastFailedBuild;
+    }
+
+    public Build getLastUnstableBuild() {
+        return lastUnstableBuild;
+    }
+
+    public Build getLastStableBuild() {
+        return lastStableBuild;
+    }
+
+    /**
+     * @return the last aborted build, might not be known while every column shows another build, see
+     *     {@link #isShownByEveryColumn}
+     */
+    public Build getLastAbortedBuild() {
+        return lastAbortedBuild;
+    }
+
+    /** @return the build if any of the permalinks points to it, null otherwise */
+    Build findBuild(int number) {
+        if (is(lastBuild, number)) {
+            return lastBuild;
+        } else if (is(lastCompletedBuild, number)) {
+            return lastCompletedBuild;
+        } else if (is(lastFailedBuild, number)) {
+            return lastFailedBuild;
+        } else if (is(lastUnstableBuild, number)) {
+            return lastUnstableBuild;
+        } else if (is(lastStableBuild, number)) {
+            return lastStableBuild;
+        } else if (is(lastAbortedBuild, number)) {
+            return lastAbortedBuild;
+        }
+        return null;
+    }
+
+    /** The build the "latest build" marker refers to. */
+    Build getLatestBuild() {
+        return lastCompletedBuild != null ? lastCompletedBuild : lastBuild;
+    }
+
+    JobStatusSnapshot withStarted(Run<?, ?> run) {
+        return new JobStatusSnapshot(
+                newer(lastBuild, Build.of(run)),
+                lastCompletedBuild,
+                lastFailedBuild,
+                lastUnstableBuild,
+                lastStableBuild,
+                lastAbortedBuild);
+    }
+
+    /** Same permalink rules as {@link jenkins.model.PeepholePermalink}, based on the result of the build. */
+    JobStatusSnapshot withCompleted(Run<?, ?> run) {
+        Build build = Build.of(run);
+        Result result = build.getResult();
+        return new JobStatusSnapshot(
+                newer(lastBuild, build),
+                newer(lastCompletedBuild, build),
+                result == Result.FAILURE ? newer(lastFailedBuild, build) : lastFailedBuild,
+                result == Result.UNSTABLE ? newer(lastUnstableBuild, build) : lastUnstableBuild,
+                result == Result.SUCCESS ? newer(lastStableBuild, build) : lastStableBuild,
+                result == Result.ABORTED ? newer(lastAbortedBuild, build) : lastAbortedBuild);
+    }
+
+    /** Whether any of the permalinks points to the given build. */
+    boolean refersTo(int number) {
+        return findBuild(number) != null;
+    }
+
+    /** Same builds, as when read from the job again. Cells are only reused for the same instance. */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JobStatusSnapshot that = (JobStatusSnapshot) o;
+        return Objects.equals(lastBuild, that.lastBuild)
+                && Objects.equals(lastCompletedBuild, that.lastCompletedBuild)
+                && Objects.equals(lastFailedBuild, that.lastFailedBuild)
+                && Objects.equals(lastUnstableBuild, that.lastUnstableBuild)
+                && Objects.equals(lastStableBuild, that.lastStableBuild)
+                && Objects.equals(lastAbortedBuild, that.lastAbortedBuild);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                lastBuild, lastCompletedBuild, lastFailedBuild, lastUnstableBuild, lastStableBuild, lastAbortedBuild);
+    }
+
+    private static boolean is(Build build, int number) {
+        return build != null && build.getNumber() == number;
+    }
+
+    private static Build newer(Build current, Build candidate) {
+        if (current == null || candidate.getNumber() >= current.getNumber()) {
+            return candidate;
+        }
+        return current;
+    }
+
+    /**
+     * What the columns need to know about a single build. Only primitives are held, so neither the
+     * build nor anything it refers to is kept in memory by a snapshot or by the cells rendered from it.
+     */
+    public static final class Build {
+
+        /** The results by {@link Result#ordinal}, all of them are constants. */
+        private static final Result[] RESULTS = {
+            Result.SUCCESS, Result.UNSTABLE, Result.FAILURE, Result.NOT_BUILT, Result.ABORTED
+        };
+
+        private static final byte RUNNING = -1;
+
+        private final int number;
+        private final long timestamp;
+        private final long duration;
+        private final byte result;
+
+        Build(int number, long timestamp, long duration, Result result) {
+            this(number, timestamp, duration, result == null ? RUNNING : (byte) result.ordinal);
+        }
+
+        /** @param result the {@link #getResultOrdinal() ordinal} of the result */
+        Build(int number, long timestamp, long duration, byte result) {
+            if (result < RUNNING || result >= RESULTS.length) {
+                throw new IllegalArgumentException("No result with ordinal " + result);
+            }
+            this.number = number;
+            this.timestamp = timestamp;
+            this.duration = duration;
+            this.result = result;
+        }
+
+        static Build of(Run<?, ?> run) {
+            if (run == null) {
+                return null;
+            }
+            return new Build(run.number, run.getTimeInMillis(), run.getDuration(), run.getResult());
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+
+        /** @return the result, or null while the build is still running */
+        public Result getResult() {
+            return result == RUNNING ? null : RESULTS[result];
+        }
+
+        /** @return the {@link Result#ordinal} of the result, or -1 while the build is still running */
+        byte getResultOrdinal() {
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Build that = (Build) o;
+            return number == that.number
+                    && timestamp == that.timestamp
+                    && duration == that.duration
+                    && result == that.result;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(number, timestamp, duration, result);
+        }
+    }
+}
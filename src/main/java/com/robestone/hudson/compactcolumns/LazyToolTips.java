@@ -0,0 +1,82 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.model.Job;
+import hudson.model.Result;
+import java.util.Locale;
+import jenkins.util.SystemProperties;
+
+/**
+ * Renders the tool-tip of a single status link for {@link
+ * AbstractStatusesColumn.AbstractCompactColumnDescriptor#doToolTip}, when {@link
+ * CompactColumnsConfiguration#isLazyToolTips()} is enabled.
+ */
+final class LazyToolTips {
+
+    private static final LruCache<Key, String> TOOL_TIPS = new LruCache<>(
+            SystemProperties.getInteger(LazyToolTips.class.getName() + ".maxSize", 1000));
+
+    private LazyToolTips() {}
+
+    /**
+     * @param timeAgoType the time-ago type of the column
+     * @param isMultiple whether the cell shows more than one build, like {@link BuildInfo#isMultipleBuilds()}
+     * @return the same tool-tip as the column renders into the page, or null when there is no such build
+     */
+    static String getToolTip(
+            Job<?, ?> job,
+            int number,
+            Locale locale,
+            AbstractStatusesColumn.TimeAgoType timeAgoType,
+            boolean isMultiple) {
+        JobStatusSnapshot snapshot = JobStatusCache.get().getSnapshot(job);
+        JobStatusSnapshot.Build build = snapshot.findBuild(number);
+        if (build == null) {
+            // not one of the statuses (anymore), e.g. an old page
+            build = JobStatusSnapshot.Build.of(job.getBuildByNumber(number));
+            if (build == null) {
+                return null;
+            }
+        }
+        JobStatusSnapshot.Build latest = snapshot.getLatestBuild();
+        boolean isLatestBuild = latest == null || latest.getNumber() == number;
+        String timeAgo = AbstractStatusesColumn.getTimeAgoString(locale, build.getTimestamp(), isMultiple, timeAgoType);
+
+        // the cheap parts are part of the key, what is cached are the formatted dates and durations
+        Key key = new Key(job.getFullName(), number, build.getTimestamp(), locale, isLatestBuild, timeAgo);
+        String toolTip = TOOL_TIPS.get(key);
+        if (toolTip == null) {
+            BuildInfo info = new BuildInfo(build, null, null, getStatus(build.getResult()), null, isLatestBuild);
+            info.setTimeAgoString(timeAgo);
+            toolTip = AbstractStatusesColumn.getBuildDescriptionToolTip(info, locale);
+            TOOL_TIPS.put(key, toolTip);
+        }
+        return toolTip;
+    }
+
+    /** @return the time-ago type of the request, {@link AbstractStatusesColumn.TimeAgoType#DIFF} if unknown */
+    static AbstractStatusesColumn.TimeAgoType toTimeAgoType(String timeAgoType) {
+        for (AbstractStatusesColumn.TimeAgoType type : AbstractStatusesColumn.TimeAgoType.values()) {
+            if (type.name().equals(timeAgoType)) {
+                return type;
+            }
+        }
+        return AbstractStatusesColumn.TimeAgoType.DIFF;
+    }
+
+    /** Same status as the column would show for the build. */
+    private static String getStatus(Result result) {
+        if (result == Result.FAILURE) {
+            return AbstractStatusesColumn.getFailedMessage();
+        } else if (result == Result.UNSTABLE) {
+            return AbstractStatusesColumn.getUnstableMessage();
+        } else if (result == Result.SUCCESS) {
+            return AbstractStatusesColumn.getStableMessage();
+        } else {
+            return AbstractStatusesColumn.getAbortedMessage();
+        }
+    }
+
+    private record Key(
+            String job, int number, long timestamp, Locale locale, boolean isLatestBuild, String timeAgo) {}
+}
@@ -0,0 +1,231 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * A small map that evicts the least recently used entries first. It is bounded by the number of
+ * entries, or by the total weight of its values if a weigher is given.
+ *
+ * <p>Reads take no lock, they only mark the entry as used. Entries are evicted in the order they
+ * were added, except that an entry used since it was last looked at gets a second chance, which is
+ * close enough to least recently used. Only writes that take the cache over its bound take a lock,
+ * to evict.
+ */
+final class LruCache<K, V> {
+
+    /** Entries of keys that were removed stay queued until there are this many more than entries. */
+    private static final int MAX_REMOVED_QUEUED = 64;
+
+    private final int maxSize;
+    private final ToIntFunction<? super V> weigher;
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    /** The entries in the order they are looked at for eviction, guarded by itself while evicting. */
+    private final Queue<Node<K, V>> queue = new ConcurrentLinkedQueue<>();
+
+    /** The size of the queue, which itself takes as long as the queue to count. */
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong weight = new AtomicLong();
+
+    LruCache(int maxSize) {
+        this(maxSize, value -> 1);
+    }
+
+    LruCache(int maxSize, ToIntFunction<? super V> weigher) {
+        this.maxSize = maxSize;
+        this.weigher = weigher;
+    }
+
+    V get(K key) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        node.use();
+        return node.value;
+    }
+
+    void put(K key, V value) {
+        Write<K, V> write = new Write<>();
+        map.compute(key, (k, node) -> {
+            if (node == null) {
+                return write.add(k, value, this);
+            }
+            set(node, value);
+            return node;
+        });
+        added(write);
+    }
+
+    V putIfAbsent(K key, V value) {
+        Write<K, V> write = new Write<>();
+        map.compute(key, (k, node) -> {
+            if (node == null) {
+                return write.add(k, value, this);
+            }
+            node.use();
+            write.existing = node.value;
+            return node;
+        });
+        added(write);
+        return write.existing;
+    }
+
+    /**
+     * Replaces the value of an existing entry, absent entries stay absent.
+     *
+     * @return the new value, or null if there was no entry
+     */
+    V update(K key, UnaryOperator<V> function) {
+        Node<K, V> updated = map.computeIfPresent(key, (k, node) -> {
+            V value = function.apply(node.value);
+            if (value == null) {
+                weight.addAndGet(-weigher.applyAsInt(node.value));
+                return null;
+            }
+            set(node, value);
+            return node;
+        });
+        evict();
+        return updated == null ? null : updated.value;
+    }
+
+    void remove(K key) {
+        Node<K, V> node = map.remove(key);
+        if (node != null) {
+            weight.addAndGet(-weigher.applyAsInt(node.value));
+        }
+    }
+
+    /** Removes the entry only if it still has the given value. */
+    void remove(K key, V value) {
+        map.computeIfPresent(key, (k, node) -> {
+            if (Objects.equals(node.value, value)) {
+                weight.addAndGet(-weigher.applyAsInt(node.value));
+                return null;
+            }
+            return node;
+        });
+    }
+
+    void removeIf(Predicate<? super K> filter) {
+        for (Node<K, V> node : map.values()) {
+            if (filter.test(node.key)) {
+                removeNode(node);
+            }
+        }
+    }
+
+    void clear() {
+        for (Node<K, V> node : map.values()) {
+            removeNode(node);
+        }
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    /** @return the number of entries, or the total weight of the values if there is a weigher */
+    long getWeight() {
+        return weight.get();
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /** Queues the new entry only once it is in the map, or evicting might take it for a removed one. */
+    private void added(Write<K, V> write) {
+        if (write.added != null) {
+            queue.add(write.added);
+            queued.incrementAndGet();
+        }
+        evict();
+    }
+
+    /** Called while the key is locked by the map. */
+    private void set(Node<K, V> node, V value) {
+        weight.addAndGet(weigher.applyAsInt(value) - weigher.applyAsInt(node.value));
+        node.value = value;
+        node.use();
+    }
+
+    private void removeNode(Node<K, V> node) {
+        if (map.remove(node.key, node)) {
+            // nothing changes the value of a node once it is out of the map
+            weight.addAndGet(-weigher.applyAsInt(node.value));
+        }
+    }
+
+    private boolean isRemoved(Node<K, V> node) {
+        return map.get(node.key) != node;
+    }
+
+    private void evict() {
+        if (weight.get() <= maxSize && queued.get() <= map.size() + MAX_REMOVED_QUEUED) {
+            return;
+        }
+        synchronized (queue) {
+            if (queued.get() > map.size() + MAX_REMOVED_QUEUED) {
+                queue.removeIf(this::isRemoved);
+                queued.set(queue.size());
+            }
+            // every entry gets one second chance at most, even if it keeps being used meanwhile
+            int secondChances = map.size();
+            while (weight.get() > maxSize) {
+                Node<K, V> node = queue.poll();
+                if (node == null) {
+                    break;
+                }
+                if (node.used && secondChances-- > 0 && !isRemoved(node)) {
+                    node.used = false;
+                    queue.add(node);
+                } else {
+                    removeNode(node);
+                    queued.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /** What a write did to the map, the lambdas of the map cannot assign local variables. */
+    private static final class Write<K, V> {
+        Node<K, V> added;
+        V existing;
+
+        /** Called while the key is locked by the map. */
+        Node<K, V> add(K key, V value, LruCache<K, V> cache) {
+            added = new Node<>(key, value);
+            cache.weight.addAndGet(cache.weigher.applyAsInt(value));
+            return added;
+        }
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        /** Whether the entry was used since eviction last looked at it. */
+        volatile boolean used;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        void use() {
+            // reads only write when they have to, so they do not keep invalidating each other's caches
+            if (!used) {
+                used = true;
+            }
+        }
+    }
+}
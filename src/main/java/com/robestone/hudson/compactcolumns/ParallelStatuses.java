@@ -0,0 +1,121 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.model.Job;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Computes the statuses of the jobs of large views on a pool of its own, see {@link
+ * CompactColumnsConfiguration#getParallelThreshold()}.
+ *
+ * <p>The pool is shared by all requests and never grows beyond its parallelism, so a few large
+ * dashboards cannot take over the CPUs of the controller. The tasks run as the user of the request,
+ * everything that depends on the locale has to be resolved by the caller.
+ */
+final class ParallelStatuses {
+
+    static final int PARALLELISM = SystemProperties.getInteger(
+            ParallelStatuses.class.getName() + ".parallelism",
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /** Reading a snapshot is cheap, smaller tasks would cost more than they save. */
+    static final int CHUNK_SIZE = 64;
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static volatile ForkJoinPool pool;
+
+    private ParallelStatuses() {}
+
+    /** @return the results, in the order of the jobs */
+    @SuppressWarnings("unchecked")
+    static <T> List<T> compute(List<Job<?, ?>> jobs, Function<Job<?, ?>, T> function) {
+        Object[] results = new Object[jobs.size()];
+        getPool().invoke(new Task(jobs, 0, jobs.size(), function, results, Jenkins.getAuthentication2()));
+        return (List<T>) Arrays.asList(results);
+    }
+
+    private static ForkJoinPool getPool() {
+        ForkJoinPool result = pool;
+        if (result == null) {
+            synchronized (ParallelStatuses.class) {
+                result = pool;
+                if (result == null) {
+                    // no compensation threads beyond the parallelism, idle workers go away after a while
+                    result = new ForkJoinPool(
+                            PARALLELISM,
+                            ParallelStatuses::newThread,
+                            null,
+                            false,
+                            0,
+                            PARALLELISM,
+                            1,
+                            p -> true,
+                            KEEP_ALIVE_SECONDS,
+                            TimeUnit.SECONDS);
+                    pool = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Compact columns statuses #" + thread.getPoolIndex());
+        thread.setContextClassLoader(ParallelStatuses.class.getClassLoader());
+        return thread;
+    }
+
+    private static final class Task extends RecursiveAction {
+
+        private final List<Job<?, ?>> jobs;
+        private final int from;
+        private final int to;
+        private final Function<Job<?, ?>, ?> function;
+        private final Object[] results;
+        private final Authentication authentication;
+
+        Task(
+                List<Job<?, ?>> jobs,
+                int from,
+                int to,
+                Function<Job<?, ?>, ?> function,
+                Object[] results,
+                Authentication authentication) {
+            this.jobs = jobs;
+            this.from = from;
+            this.to = to;
+            this.function = function;
+            this.results = results;
+            this.authentication = authentication;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new Task(jobs, from, middle, function, results, authentication),
+                        new Task(jobs, middle, to, function, results, authentication));
+                return;
+            }
+            try (ACLContext ignored = ACL.as2(authentication)) {
+                for (int i = from; i < to; i++) {
+                    results[i] = function.apply(jobs.get(i));
+                }
+            }
+        }
+    }
+}
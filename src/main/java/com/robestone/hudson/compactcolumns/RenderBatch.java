@@ -0,0 +1,63 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * What all status cells rendered together have in common, so it is looked up once per view instead
+ * of once per cell.
+ *
+ * <p>Sharing the same "now" also means that all cells of a page agree on how long ago something
+ * happened.
+ */
+final class RenderBatch {
+
+    /** The batch of the cells that are computed on this thread, see {@link #with}. */
+    private static final ThreadLocal<RenderBatch> CURRENT = new ThreadLocal<>();
+
+    final Locale locale;
+    final long now;
+    final String failedMessage;
+    final String unstableMessage;
+    final String stableMessage;
+    final String abortedMessage;
+
+    RenderBatch(Locale locale, long now) {
+        this.locale = locale;
+        this.now = now;
+        this.failedMessage = AbstractStatusesColumn.getFailedMessage();
+        this.unstableMessage = AbstractStatusesColumn.getUnstableMessage();
+        this.stableMessage = AbstractStatusesColumn.getStableMessage();
+        this.abortedMessage = AbstractStatusesColumn.getAbortedMessage();
+    }
+
+    static RenderBatch of(Locale locale) {
+        return new RenderBatch(locale, System.currentTimeMillis());
+    }
+
+    /**
+     * Runs the computation of a cell with this batch as the current one, so {@link
+     * AbstractStatusesColumn#computeBuilds(hudson.model.Job, Locale)} shares it without it being part
+     * of that method.
+     */
+    <T> T with(Supplier<T> computation) {
+        RenderBatch previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return computation.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /** @return the batch of the cells computed on this thread, or a new one if there is none for the locale */
+    static RenderBatch current(Locale locale) {
+        RenderBatch batch = CURRENT.get();
+        return batch != null && batch.locale.equals(locale) ? batch : of(locale);
+    }
+}
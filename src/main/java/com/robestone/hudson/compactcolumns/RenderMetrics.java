@@ -0,0 +1,214 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jenkins.util.SystemProperties;
+
+/**
+ * How long the columns take to render their parts, by column type. Shown on {@link
+ * RenderMetricsLink} and exposed as the MBean {@value #OBJECT_NAME}.
+ *
+ * <p>Recording takes two calls of {@link System#nanoTime()} and does not lock, see {@link
+ * LatencyRecorder}. It can be turned off with the system property {@code
+ * com.robestone.hudson.compactcolumns.RenderMetrics.disabled}.
+ */
+public final class RenderMetrics implements RenderMetricsMXBean {
+
+    static final String OBJECT_NAME = "com.robestone.hudson.compactcolumns:type=RenderMetrics";
+
+    static final boolean DISABLED = SystemProperties.getBoolean(RenderMetrics.class.getName() + ".disabled");
+
+    /** Returned by {@link #start()} when nothing is recorded. */
+    private static final long NOT_RECORDED = Long.MIN_VALUE;
+
+    private static final Logger LOGGER = Logger.getLogger(RenderMetrics.class.getName());
+
+    private static final RenderMetrics INSTANCE = new RenderMetrics();
+
+    public enum Operation {
+        /**
+         * {@link AbstractStatusesColumn#getBuilds(hudson.model.Job, java.util.Locale)}, only when the
+         * builds were not computed for the request already, like by {@link #VIEW_BUILDS}
+         */
+        BUILDS,
+        /** {@link AbstractStatusesColumn#getViewBuilds}, all rows of a view */
+        VIEW_BUILDS,
+        /** {@link AbstractStatusesColumn#getToolTip} */
+        BUILD_TOOL_TIP,
+        /** {@link JobNameColorColumn#getStyle} */
+        JOB_STYLE,
+        /** {@link JobNameColorColumn#getToolTip} */
+        JOB_TOOL_TIP,
+        /** {@link JobStatusSnapshot#scanLastAbortedBuild}, which may load builds, by job type */
+        ABORTED_SCAN
+    }
+
+    private volatile Recorders recorders = new Recorders();
+
+    RenderMetrics() {}
+
+    public static RenderMetrics get() {
+        return INSTANCE;
+    }
+
+    /** @return the start of an operation, to be passed to {@link #record} */
+    static long start() {
+        return DISABLED ? NOT_RECORDED : System.nanoTime();
+    }
+
+    /** Records the operation of the given type, which started at {@code start}. */
+    void record(Operation operation, Class<?> type, long start) {
+        if (start == NOT_RECORDED) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        recorders.get(operation, type).record(nanos);
+    }
+
+    @Override
+    public List<Statistics> getStatistics() {
+        List<Statistics> statistics = new ArrayList<>();
+        recorders.all.forEach((key, recorder) -> statistics.add(new Statistics(key, recorder)));
+        statistics.sort(Comparator.comparing(Statistics::getOperation).thenComparing(Statistics::getColumnType));
+        return statistics;
+    }
+
+    @Override
+    public void reset() {
+        recorders = new Recorders();
+    }
+
+    private record Key(Operation operation, Class<?> type) {}
+
+    /**
+     * The recorders by operation and type. Looking one up does not allocate, only the first record of
+     * a type does, to add it to the ones shown.
+     */
+    private static final class Recorders {
+
+        final Map<Key, LatencyRecorder> all = new ConcurrentHashMap<>();
+        private final Map<Operation, ClassValue<LatencyRecorder>> byOperation = new EnumMap<>(Operation.class);
+
+        Recorders() {
+            for (Operation operation : Operation.values()) {
+                byOperation.put(operation, new ClassValue<>() {
+                    @Override
+                    protected LatencyRecorder computeValue(Class<?> type) {
+                        return all.computeIfAbsent(new Key(operation, type), k -> new LatencyRecorder());
+                    }
+                });
+            }
+        }
+
+        LatencyRecorder get(Operation operation, Class<?> type) {
+            return byOperation.get(operation).get(type);
+        }
+    }
+
+    /** What has been recorded for one operation of one column type, in milliseconds. */
+    public static final class Statistics {
+
+        private final String operation;
+        private final String columnType;
+        private final long count;
+        private final double totalMillis;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p90Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        Statistics(Key key, LatencyRecorder recorder) {
+            this.operation = key.operation.name();
+            this.columnType = key.type.getSimpleName();
+            this.count = recorder.getCount();
+            long totalNanos = recorder.getTotalNanos();
+            this.totalMillis = toMillis(totalNanos);
+            this.meanMillis = count == 0 ? 0 : toMillis(totalNanos) / count;
+            this.p50Millis = toMillis(recorder.getPercentile(0.5));
+            this.p90Millis = toMillis(recorder.getPercentile(0.9));
+            this.p99Millis = toMillis(recorder.getPercentile(0.99));
+            this.maxMillis = toMillis(recorder.getMaxNanos());
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getColumnType() {
+            return columnType;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        public double getMeanMillis() {
+            return meanMillis;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP90Millis() {
+            return p90Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+    }
+
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to register " + OBJECT_NAME, e);
+        }
+    }
+
+    @Terminator
+    public static void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.FINE, "Failed to unregister " + OBJECT_NAME, e);
+        }
+    }
+}
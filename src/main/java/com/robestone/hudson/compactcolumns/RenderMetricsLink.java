@@ -0,0 +1,117 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import java.util.List;
+import java.util.Locale;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.verb.POST;
+
+/** Shows the {@link RenderMetrics} and how well the caches of the plugin work, under Manage Jenkins. */
+@Extension
+public class RenderMetricsLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-analytics";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.renderMetrics();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.renderMetricsDescription();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "compact-columns-metrics";
+    }
+
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    public boolean isEnabled() {
+        return !RenderMetrics.DISABLED;
+    }
+
+    public List<RenderMetrics.Statistics> getStatistics() {
+        return RenderMetrics.get().getStatistics();
+    }
+
+    public int getSnapshotCount() {
+        return JobStatusCache.get().size();
+    }
+
+    /** @return the number of jobs in the status index, which is kept on disk */
+    public int getIndexedCount() {
+        StatusIndex index = StatusIndex.get();
+        return index == null ? 0 : index.size();
+    }
+
+    public DescriptionCache getDescriptionCache() {
+        return DescriptionCache.get();
+    }
+
+    public RenderedCellCache getRenderedCellCache() {
+        return RenderedCellCache.get();
+    }
+
+    public long getTimeAgoHits() {
+        return TimeAgoStrings.get().getHits();
+    }
+
+    public long getTimeAgoMisses() {
+        return TimeAgoStrings.get().getMisses();
+    }
+
+    /** @return the latest warm-up of the statuses, or null if there was none */
+    public StatusWarmUp.Progress getWarmUp() {
+        return StatusWarmUp.get().getProgress();
+    }
+
+    public SlowCellTracer getTracer() {
+        return SlowCellTracer.get();
+    }
+
+    /** @return the milliseconds with microseconds, the same in every locale */
+    public String format(double millis) {
+        return String.format(Locale.ROOT, "%.3f", millis);
+    }
+
+    @POST
+    public HttpResponse doReset() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        RenderMetrics.get().reset();
+        return HttpResponses.redirectToDot();
+    }
+
+    @POST
+    public HttpResponse doStartTracing() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        SlowCellTracer.get().setEnabled(true);
+        return HttpResponses.redirectToDot();
+    }
+
+    @POST
+    public HttpResponse doStopTracing() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        SlowCellTracer.get().setEnabled(false);
+        return HttpResponses.redirectToDot();
+    }
+
+    @POST
+    public HttpResponse doClearTraces() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        SlowCellTracer.get().clear();
+        return HttpResponses.redirectToDot();
+    }
+}
@@ -0,0 +1,12 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import java.util.List;
+
+/** The render metrics over JMX, see {@link RenderMetrics}. */
+public interface RenderMetricsMXBean {
+
+    List<RenderMetrics.Statistics> getStatistics();
+
+    void reset();
+}
@@ -0,0 +1,128 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import hudson.model.listeners.ItemListener;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import jenkins.util.SystemProperties;
+
+/**
+ * The markup of status cells, so a cell is only rendered again once something it shows has changed,
+ * see {@link CompactColumnsConfiguration#isCacheCells()}.
+ *
+ * <p>A cell is reused while its job has the {@link JobStatusSnapshot} the cell was rendered from,
+ * and until the first of its time-ago strings would read differently. Builds do not have to drop any
+ * cells, their job gets a new snapshot, and the cell rendered from it takes the place of the old one.
+ * Everything else the markup depends on is part of the key. The cache is bounded by the total length
+ * of the markup, the least recently used cells are dropped first.
+ */
+public final class RenderedCellCache {
+
+    static final int DEFAULT_MAX_CHARS =
+            SystemProperties.getInteger(RenderedCellCache.class.getName() + ".maxChars", 4 * 1024 * 1024);
+
+    private static final RenderedCellCache INSTANCE = new RenderedCellCache(DEFAULT_MAX_CHARS);
+
+    private final LruCache<Key, Fragment> fragments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    RenderedCellCache(int maxChars) {
+        this.fragments = new LruCache<>(maxChars, fragment -> fragment.html.length());
+    }
+
+    public static RenderedCellCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the markup of the cell, if it was rendered from this snapshot and is still current at
+     *     the given time, null otherwise
+     */
+    String get(Key key, JobStatusSnapshot snapshot, long now) {
+        Fragment fragment = fragments.get(key);
+        if (fragment != null
+                && fragment.snapshot == snapshot
+                && now >= fragment.renderedAt
+                && now < fragment.expiresAt) {
+            hits.increment();
+            return fragment.html;
+        }
+        misses.increment();
+        return null;
+    }
+
+    void put(Key key, JobStatusSnapshot snapshot, long renderedAt, long expiresAt, String html) {
+        if (expiresAt > renderedAt) {
+            fragments.put(key, new Fragment(snapshot, renderedAt, expiresAt, html));
+        }
+    }
+
+    /** Forgets about the cells of the item, and of all jobs inside of it if it is a folder. */
+    void invalidate(Item item) {
+        if (item instanceof ItemGroup) {
+            String prefix = item.getFullName() + "/";
+            fragments.removeIf(key -> key.job == item || key.job.getFullName().startsWith(prefix));
+        } else {
+            fragments.removeIf(key -> key.job == item);
+        }
+    }
+
+    void invalidateAll() {
+        fragments.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return fragments.size();
+    }
+
+    /** @return the total length of the cached markup, in characters */
+    public long getChars() {
+        return fragments.getWeight();
+    }
+
+    /**
+     * Everything but the state of the job and the time that goes into the markup of a cell. Columns
+     * are compared by identity, they are created anew whenever a view is configured.
+     */
+    record Key(
+            AbstractStatusesColumn column,
+            Job<?, ?> job,
+            Locale locale,
+            String jobBaseUrl,
+            String toolTipUrl,
+            boolean cssClasses,
+            boolean clientSideTimes) {}
+
+    private record Fragment(JobStatusSnapshot snapshot, long renderedAt, long expiresAt, String html) {}
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onDeleted(Item item) {
+            get().invalidate(item);
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            get().invalidate(item);
+        }
+
+        @Override
+        public void onLoaded() {
+            get().invalidateAll();
+        }
+    }
+}
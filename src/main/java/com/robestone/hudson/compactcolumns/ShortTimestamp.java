@@ -0,0 +1,200 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jvnet.localizer.Localizable;
+import org.jvnet.localizer.ResourceBundleHolder;
+
+/**
+ * Formats durations like "1.5 days" or "17 min", see {@link AbstractStatusesColumn#getShortTimestamp}.
+ *
+ * <p>Rounding is done with primitives, and since the rounded numbers are either tenths below 10 or
+ * small integers, the formatted messages are looked up from a table per locale instead of being
+ * formatted again for every build.
+ */
+final class ShortTimestamp {
+
+    // copied from hudson.Util because they were private
+    static final long ONE_SECOND_MS = 1000;
+    static final long ONE_MINUTE_MS = 60 * ONE_SECOND_MS;
+    static final long ONE_HOUR_MS = 60 * ONE_MINUTE_MS;
+    static final long ONE_DAY_MS = 24 * ONE_HOUR_MS;
+    static final long ONE_MONTH_MS = 30 * ONE_DAY_MS;
+    static final long ONE_YEAR_MS = 365 * ONE_DAY_MS;
+
+    /** Every unit but years rolls over to the next one before 60. */
+    private static final int MAX_CACHED_TENTHS = 600;
+
+    private static final int MAX_LOCALES = 64;
+
+    private static final Map<Locale, String[][]> MESSAGES = new ConcurrentHashMap<>();
+
+    private ShortTimestamp() {}
+
+    enum Unit {
+        SECOND(ONE_SECOND_MS),
+        MINUTE(ONE_MINUTE_MS),
+        HOUR(ONE_HOUR_MS),
+        DAY(ONE_DAY_MS),
+        MONTH(ONE_MONTH_MS),
+        YEAR(ONE_YEAR_MS);
+
+        final long millis;
+
+        Unit(long millis) {
+            this.millis = millis;
+        }
+
+        static Unit of(float time) {
+            if (time >= ONE_YEAR_MS) {
+                return YEAR;
+            } else if (time >= ONE_MONTH_MS) {
+                return MONTH;
+            } else if (time >= ONE_DAY_MS) {
+                return DAY;
+            } else if (time >= ONE_HOUR_MS) {
+                return HOUR;
+            } else if (time >= ONE_MINUTE_MS) {
+                return MINUTE;
+            } else {
+                return SECOND;
+            }
+        }
+
+        Localizable message(Object number) {
+            switch (this) {
+                case YEAR:
+                    return Messages._util_year(number);
+                case MONTH:
+                    return Messages._util_month(number);
+                case DAY:
+                    return Messages._util_day(number);
+                case HOUR:
+                    return Messages._util_hour(number);
+                case MINUTE:
+                    return Messages._util_minute(number);
+                default:
+                    return Messages._util_second(number);
+            }
+        }
+    }
+
+    /**
+     * The message patterns of all units, smallest first, for formatting in the browser. They may
+     * contain choice formats, see {@code time-ago.js}.
+     */
+    static List<String> getPatterns(Locale locale) {
+        ResourceBundle bundle = ResourceBundleHolder.get(Messages.class).get(locale);
+        List<String> patterns = new ArrayList<>();
+        for (Unit unit : Unit.values()) {
+            patterns.add(bundle.getString("util." + unit.name().toLowerCase(Locale.ENGLISH)));
+        }
+        return patterns;
+    }
+
+    static String format(float time, Locale locale) {
+        if (time < ONE_SECOND_MS) {
+            return message(Unit.SECOND, 0, locale);
+        }
+        Unit unit = Unit.of(time);
+        return message(unit, getRoundedTenths(time / unit.millis), locale);
+    }
+
+    /**
+     * The smallest duration longer than the given one that is formatted differently, so a short
+     * timestamp can be reused until then.
+     *
+     * <p>The rounding is done in floats, so instead of solving for the boundary the unit and number
+     * are compared, which only ever grow with the duration.
+     */
+    static long getNextChange(long time) {
+        long rounded = getRounded(time);
+        long same = time;
+        long changed = time + ONE_YEAR_MS;
+        if (getRounded(changed) == rounded) {
+            // only for durations no build could have, expiring early is safe
+            return changed;
+        }
+        while (changed - same > 1) {
+            long middle = same + (changed - same) / 2;
+            if (getRounded(middle) == rounded) {
+                same = middle;
+            } else {
+                changed = middle;
+            }
+        }
+        return changed;
+    }
+
+    /** The unit and the rounded number {@link #format} would use, in one comparable number. */
+    private static long getRounded(long duration) {
+        float time = duration;
+        if (time < ONE_SECOND_MS) {
+            return -1;
+        }
+        Unit unit = Unit.of(time);
+        return ((long) unit.ordinal() << 56) | getRoundedTenths(time / unit.millis);
+    }
+
+    /**
+     * Same as rounding the exact value of the float to one decimal below 10 and to an integer from
+     * there on, with {@link java.math.RoundingMode#HALF_DOWN}.
+     *
+     * <p>Multiplying a float by 10 is exact in double precision, so is taking the fraction.
+     *
+     * @return the rounded number, in tenths
+     */
+    static long getRoundedTenths(float number) {
+        if (number >= 10) {
+            return roundHalfDown(number) * 10;
+        }
+        return roundHalfDown(number * 10.0);
+    }
+
+    /** The float closest to the rounded number, just like {@link java.math.BigDecimal#floatValue()}. */
+    static float toFloat(long tenths) {
+        if (tenths >= 100) {
+            // integers from here on, dividing would lose precision for huge ones
+            return tenths / 10;
+        }
+        return tenths / 10f;
+    }
+
+    private static long roundHalfDown(double number) {
+        long floor = (long) Math.floor(number);
+        return number - floor > 0.5 ? floor + 1 : floor;
+    }
+
+    private static String message(Unit unit, long tenths, Locale locale) {
+        if (tenths > MAX_CACHED_TENTHS) {
+            return unit.message(toFloat(tenths)).toString(locale);
+        }
+        String[] messages = getMessages(locale)[unit.ordinal()];
+        int index = (int) tenths;
+        String message = messages[index];
+        if (message == null) {
+            // below one second nothing is rounded, which is formatted as "0" like 0.0
+            Object number = tenths == 0 ? (Object) 0 : (Object) toFloat(tenths);
+            message = unit.message(number).toString(locale);
+            // racing threads compute the same string, so there is no need to synchronize
+            messages[index] = message;
+        }
+        return message;
+    }
+
+    private static String[][] getMessages(Locale locale) {
+        String[][] messages = MESSAGES.get(locale);
+        if (messages == null) {
+            if (MESSAGES.size() >= MAX_LOCALES) {
+                MESSAGES.clear();
+            }
+            messages = MESSAGES.computeIfAbsent(locale, l -> new String[Unit.values().length][MAX_CACHED_TENTHS + 1]);
+        }
+        return messages;
+    }
+}
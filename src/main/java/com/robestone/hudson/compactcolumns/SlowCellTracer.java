@@ -0,0 +1,180 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.model.Job;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import jenkins.util.SystemProperties;
+
+/**
+ * Opt-in tracing of how long each job takes to render in the compact columns, to find the few jobs
+ * that make a dashboard slow. Started and shown on {@link RenderMetricsLink}.
+ *
+ * <p>The most recent traces are kept in a ring buffer, and the slowest jobs among them are shown.
+ * Each trace also counts the build records the plugin read from disk for it, see {@link
+ * #noteBuildRead()}. Builds Jenkins had in memory already are not counted, and neither are the ones
+ * Jenkins loads by itself, like the newest build of a job.
+ */
+public final class SlowCellTracer {
+
+    static final int BUFFER_SIZE =
+            SystemProperties.getInteger(SlowCellTracer.class.getName() + ".bufferSize", 4096);
+
+    static final int TOP = SystemProperties.getInteger(SlowCellTracer.class.getName() + ".top", 25);
+
+    private static final SlowCellTracer INSTANCE = new SlowCellTracer(BUFFER_SIZE);
+
+    /** The number of builds the current thread read from disk, so nested traces can tell theirs apart. */
+    private static final ThreadLocal<long[]> BUILDS_READ = ThreadLocal.withInitial(() -> new long[1]);
+
+    public enum Part {
+        /** Computing the builds of a status cell. */
+        BUILDS,
+        /** Rendering a cell, including whatever was not computed up front. */
+        CELL
+    }
+
+    private final AtomicReferenceArray<Trace> traces;
+    private final AtomicLong next = new AtomicLong();
+    private volatile boolean enabled;
+
+    SlowCellTracer(int bufferSize) {
+        this.traces = new AtomicReferenceArray<>(bufferSize);
+    }
+
+    public static SlowCellTracer get() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** Called wherever a build is read from disk, see {@link BuildRecordReader}. */
+    static void noteBuildRead() {
+        if (INSTANCE.enabled) {
+            BUILDS_READ.get()[0]++;
+        }
+    }
+
+    /** @return the start of a trace, to be passed to {@link #end}, or null if not tracing */
+    Span start() {
+        if (!enabled) {
+            return null;
+        }
+        return new Span(System.nanoTime(), BUILDS_READ.get()[0]);
+    }
+
+    void end(Span span, Job<?, ?> job, Class<?> columnType, Part part) {
+        if (span == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - span.start;
+        int buildsRead = (int) (BUILDS_READ.get()[0] - span.buildsRead);
+        add(new Trace(
+                job.getFullName(), columnType.getSimpleName(), part, nanos, buildsRead, System.currentTimeMillis()));
+    }
+
+    /** Overwrites the oldest trace once the buffer is full. */
+    void add(Trace trace) {
+        traces.set((int) (next.getAndIncrement() % traces.length()), trace);
+    }
+
+    /** @return the slowest trace of each job, slowest job first */
+    public List<Trace> getSlowestJobs() {
+        Map<String, Trace> slowest = new HashMap<>();
+        for (int i = 0; i < traces.length(); i++) {
+            Trace trace = traces.get(i);
+            if (trace != null) {
+                slowest.merge(trace.jobFullName, trace, (a, b) -> a.nanos >= b.nanos ? a : b);
+            }
+        }
+        List<Trace> result = new ArrayList<>(slowest.values());
+        result.sort(Comparator.comparingLong((Trace trace) -> trace.nanos).reversed());
+        return result.subList(0, Math.min(TOP, result.size()));
+    }
+
+    public int getBufferSize() {
+        return traces.length();
+    }
+
+    /** @return the number of traces that were recorded, including the ones that were overwritten */
+    public long getTraceCount() {
+        return next.get();
+    }
+
+    void clear() {
+        for (int i = 0; i < traces.length(); i++) {
+            traces.set(i, null);
+        }
+        next.set(0);
+    }
+
+    /** Where a trace started. */
+    public static final class Span {
+        private final long start;
+        private final long buildsRead;
+
+        private Span(long start, long buildsRead) {
+            this.start = start;
+            this.buildsRead = buildsRead;
+        }
+    }
+
+    public static final class Trace {
+        private final String jobFullName;
+        private final String columnType;
+        private final Part part;
+        private final long nanos;
+        private final int buildsRead;
+        private final long timestamp;
+
+        Trace(String jobFullName, String columnType, Part part, long nanos, int buildsRead, long timestamp) {
+            this.jobFullName = jobFullName;
+            this.columnType = columnType;
+            this.part = part;
+            this.nanos = nanos;
+            this.buildsRead = buildsRead;
+            this.timestamp = timestamp;
+        }
+
+        public String getJobFullName() {
+            return jobFullName;
+        }
+
+        public String getColumnType() {
+            return columnType;
+        }
+
+        public Part getPart() {
+            return part;
+        }
+
+        public double getMillis() {
+            return nanos / 1_000_000.0;
+        }
+
+        /** @return the number of builds read from disk */
+        public int getBuildsRead() {
+            return buildsRead;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Date getTime() {
+            return new Date(timestamp);
+        }
+    }
+}
@@ -0,0 +1,431 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.init.Terminator;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+
+/**
+ * The {@link JobStatusSnapshot}s of {@link JobStatusCache}, kept in a file in {@code JENKINS_HOME} so
+ * that they survive restarts. After a restart, the columns render from this file right away, while
+ * {@link StatusWarmUp} checks the snapshots against the permalinks of the jobs in the background.
+ *
+ * <p>The file is a log of small records that is appended to a few seconds after snapshots
+ * change, and rewritten once most of it is outdated. Each record has a checksum. A file that cannot
+ * be read is ignored from the first bad record on, so the jobs of those records are looked up the
+ * normal way.
+ *
+ * <p>Every write ends with a checkpoint, the time up to which the entries that were kept current by
+ * {@link JobStatusCache} are known to be current. Entries that are still as they were read from the
+ * file when it is rewritten keep the time they were current up to, see {@link #getStaleSince}.
+ */
+final class StatusIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(StatusIndex.class.getName());
+
+    static final boolean DISABLED = SystemProperties.getBoolean(StatusIndex.class.getName() + ".disabled");
+
+    static final String FILE_NAME = "compact-columns-statuses.bin";
+
+    /** "CCSI", then the version of the format. */
+    private static final int MAGIC = 0x43435349;
+
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte PUT = 1;
+
+    private static final byte REMOVE = 2;
+
+    private static final byte CHECKPOINT = 3;
+
+    /** The time of an entry that is current up to the next checkpoint. */
+    private static final long CURRENT = -1;
+
+    /** Length, type, an empty name, the time and checksum. */
+    private static final int CHECKPOINT_SIZE = 4 + 1 + 2 + 8 + 4;
+
+    /** Number, timestamp, duration and result of one build, a number of 0 for none. */
+    private static final int BUILD_SIZE = 4 + 8 + 8 + 1;
+
+    private static final int BUILDS = 6;
+
+    /** Names are written with their length in two bytes, a UTF-8 character takes up to three. */
+    private static final int MAX_NAME_LENGTH = 0xFFFF / 3;
+
+    /**
+     * Jobs beyond this are not indexed and are read the normal way after a restart. Jobs that no
+     * longer exist are removed when Jenkins starts, see {@link StatusWarmUp#collectIndexedJobs}.
+     */
+    static final int MAX_ENTRIES =
+            SystemProperties.getInteger(StatusIndex.class.getName() + ".maxEntries", 100_000);
+
+    /** How long changes are collected before they are written, so a busy controller writes in batches. */
+    private static final long WRITE_DELAY_SECONDS = 5;
+
+    /** Outdated records are only rewritten once they take up more than this. */
+    private static final long MIN_GARBAGE = 64 * 1024;
+
+    private static volatile StatusIndex instance;
+
+    private final Path file;
+
+    /** What the file says once all pending changes are written. */
+    private final Map<String, JobStatusSnapshot> entries = new ConcurrentHashMap<>();
+
+    /**
+     * The entries that are still the ones read from the file, which may be out of date, by the time
+     * they were known to be current up to.
+     */
+    private final Map<String, Long> fromFile = new ConcurrentHashMap<>();
+
+    /** The jobs whose entries changed since the last write. */
+    private final Set<String> pending = new LinkedHashSet<>();
+
+    /** The size of what was written so far, 0 if the file has to be written from scratch. */
+    private long fileSize;
+
+    private boolean writeScheduled;
+
+    StatusIndex(Path file) {
+        this.file = file;
+        read();
+    }
+
+    /** @return the index of the current Jenkins, or null if there is none or it is turned off */
+    static StatusIndex get() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (DISABLED || jenkins == null) {
+            return null;
+        }
+        Path file = new File(jenkins.getRootDir(), FILE_NAME).toPath();
+        StatusIndex result = instance;
+        if (result == null || !result.file.equals(file)) {
+            synchronized (StatusIndex.class) {
+                result = instance;
+                if (result == null || !result.file.equals(file)) {
+                    result = new StatusIndex(file);
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Terminator
+    public static void writeOnShutdown() {
+        StatusIndex index = instance;
+        if (index != null) {
+            // even without changes, the entries kept current are current up to the shutdown
+            index.write(true);
+        }
+    }
+
+    JobStatusSnapshot find(String fullName) {
+        return entries.get(fullName);
+    }
+
+    /**
+     * @return since when the entry of the job may be out of date, the last checkpoint it was current
+     *     at for entries read from the file and {@link Long#MAX_VALUE} for entries that are kept current
+     */
+    long getStaleSince(String fullName) {
+        Long since = fromFile.get(fullName);
+        return since != null ? since : Long.MAX_VALUE;
+    }
+
+    Set<String> getNames() {
+        return entries.keySet();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void put(String fullName, JobStatusSnapshot snapshot) {
+        if (fullName.length() > MAX_NAME_LENGTH) {
+            // cannot be written, and is not worth another format
+            return;
+        }
+        if (entries.size() >= MAX_ENTRIES && !entries.containsKey(fullName)) {
+            return;
+        }
+        fromFile.remove(fullName);
+        if (!snapshot.equals(entries.put(fullName, snapshot))) {
+            change(fullName);
+        }
+    }
+
+    void remove(String fullName) {
+        fromFile.remove(fullName);
+        if (entries.remove(fullName) != null) {
+            change(fullName);
+        }
+    }
+
+    void removeIf(Predicate<String> filter) {
+        for (String fullName : entries.keySet()) {
+            if (filter.test(fullName)) {
+                remove(fullName);
+            }
+        }
+    }
+
+    private synchronized void change(String fullName) {
+        pending.add(fullName);
+        if (!writeScheduled) {
+            writeScheduled = true;
+            Timer.get().schedule(() -> write(), WRITE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Appends the pending changes, or rewrites the file if that is smaller. */
+    synchronized void write() {
+        write(false);
+    }
+
+    /** @param always whether to write a checkpoint even if nothing changed */
+    private synchronized void write(boolean always) {
+        writeScheduled = false;
+        if (pending.isEmpty() && !always) {
+            return;
+        }
+        try {
+            // the entries kept current are current up to now, pending changes are written with them
+            long checkpoint = System.currentTimeMillis();
+            Map<String, JobStatusSnapshot> live = Map.copyOf(entries);
+            long liveSize = recordsSize(live) + CHECKPOINT_SIZE;
+            long garbage = fileSize - HEADER_SIZE - liveSize;
+            if (fileSize == 0 || garbage > Math.max(MIN_GARBAGE, liveSize)) {
+                rewrite(live, checkpoint);
+            } else {
+                append(checkpoint);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot write " + file, e);
+            // the next write starts from scratch
+            fileSize = 0;
+        }
+        pending.clear();
+    }
+
+    /** Writes what the entries are now, they may have changed again since they were added to the pending ones. */
+    private void append(long checkpoint) throws IOException {
+        Map<String, JobStatusSnapshot> changes = new LinkedHashMap<>();
+        for (String fullName : pending) {
+            changes.put(fullName, entries.get(fullName));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(recordsSize(changes) + CHECKPOINT_SIZE);
+        for (Map.Entry<String, JobStatusSnapshot> entry : changes.entrySet()) {
+            // changed entries are kept current, so they are current up to the checkpoint
+            putRecord(buffer, entry.getKey(), entry.getValue(), CURRENT);
+        }
+        putCheckpoint(buffer, checkpoint);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        fileSize += buffer.limit();
+    }
+
+    private void rewrite(Map<String, JobStatusSnapshot> live, long checkpoint) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + recordsSize(live) + CHECKPOINT_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        for (Map.Entry<String, JobStatusSnapshot> entry : live.entrySet()) {
+            putRecord(buffer, entry.getKey(), entry.getValue(), fromFile.getOrDefault(entry.getKey(), CURRENT));
+        }
+        putCheckpoint(buffer, checkpoint);
+        buffer.flip();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(
+                temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        fileSize = buffer.limit();
+    }
+
+    private void read() {
+        ByteBuffer buffer;
+        try {
+            // not mapped, a mapped file could not be replaced by rewrite() on Windows
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            // nothing was written yet
+            return;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot read " + file, e);
+            return;
+        }
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            LOGGER.warning(() -> "Ignoring " + file + ", it is not a status index of this version");
+            return;
+        }
+        Map<String, Long> staleSince = new HashMap<>();
+        long checkpoint = 0;
+        int valid = HEADER_SIZE;
+        try {
+            while (buffer.hasRemaining()) {
+                long time = readRecord(buffer, staleSince);
+                if (time != 0) {
+                    checkpoint = time;
+                }
+                valid = buffer.position();
+            }
+            fileSize = valid;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // most likely the last write did not complete, everything before it is fine
+            LOGGER.log(Level.WARNING, "Ignoring " + file + " from byte " + valid + " on", e);
+            // written from scratch the next time
+            fileSize = 0;
+        }
+        for (Map.Entry<String, Long> entry : staleSince.entrySet()) {
+            if (entry.getValue() == CURRENT) {
+                // without any checkpoint, the entry is as good as outdated
+                fromFile.put(entry.getKey(), checkpoint);
+                // written with its time the next time, so the checkpoints from now on do not count for it
+                fileSize = 0;
+            } else {
+                fromFile.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @param staleSince the time each entry read so far was current up to, or {@link #CURRENT}
+     * @return the time of a checkpoint, 0 for other records
+     * @throws IllegalArgumentException if the record is corrupt
+     */
+    private long readRecord(ByteBuffer buffer, Map<String, Long> staleSince) {
+        int length = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining() - 4) {
+            throw new IllegalArgumentException("Bad record length " + length);
+        }
+        ByteBuffer record = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        CRC32 crc = new CRC32();
+        crc.update(record.duplicate());
+        if ((int) crc.getValue() != buffer.getInt()) {
+            throw new IllegalArgumentException("Bad checksum");
+        }
+        byte type = record.get();
+        byte[] name = new byte[Short.toUnsignedInt(record.getShort())];
+        record.get(name);
+        String fullName = new String(name, StandardCharsets.UTF_8);
+        if (type == CHECKPOINT) {
+            return record.getLong();
+        } else if (type == REMOVE) {
+            entries.remove(fullName);
+            staleSince.remove(fullName);
+        } else if (type == PUT) {
+            JobStatusSnapshot.Build[] builds = new JobStatusSnapshot.Build[BUILDS];
+            for (int i = 0; i < BUILDS; i++) {
+                builds[i] = getBuild(record);
+            }
+            long since = record.getLong();
+            if (entries.size() < MAX_ENTRIES || entries.containsKey(fullName)) {
+                entries.put(
+                        fullName,
+                        new JobStatusSnapshot(builds[0], builds[1], builds[2], builds[3], builds[4], builds[5]));
+                staleSince.put(fullName, since);
+            }
+        } else {
+            throw new IllegalArgumentException("Bad record type " + type);
+        }
+        return 0;
+    }
+
+    private static int recordsSize(Map<String, JobStatusSnapshot> records) {
+        int size = 0;
+        for (Map.Entry<String, JobStatusSnapshot> entry : records.entrySet()) {
+            size += recordSize(entry.getKey(), entry.getValue());
+        }
+        return size;
+    }
+
+    /** Length, type, name, builds with the time they were current up to, and checksum. */
+    private static int recordSize(String fullName, JobStatusSnapshot snapshot) {
+        int builds = snapshot == null ? 0 : BUILDS * BUILD_SIZE + 8;
+        return 4 + 1 + 2 + fullName.getBytes(StandardCharsets.UTF_8).length + builds + 4;
+    }
+
+    /** @param staleSince the time the entry was current up to, or {@link #CURRENT} */
+    private static void putRecord(ByteBuffer buffer, String fullName, JobStatusSnapshot snapshot, long staleSince) {
+        byte[] name = fullName.getBytes(StandardCharsets.UTF_8);
+        int length = recordSize(fullName, snapshot) - 8;
+        buffer.putInt(length);
+        int start = buffer.position();
+        buffer.put(snapshot == null ? REMOVE : PUT);
+        buffer.putShort((short) name.length);
+        buffer.put(name);
+        if (snapshot != null) {
+            putBuild(buffer, snapshot.getLastBuild());
+            putBuild(buffer, snapshot.getLastCompletedBuild());
+            putBuild(buffer, snapshot.getLastFailedBuild());
+            putBuild(buffer, snapshot.getLastUnstableBuild());
+            putBuild(buffer, snapshot.getLastStableBuild());
+            putBuild(buffer, snapshot.getLastAbortedBuild());
+            buffer.putLong(staleSince);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(start, length));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private static void putCheckpoint(ByteBuffer buffer, long time) {
+        int length = CHECKPOINT_SIZE - 8;
+        buffer.putInt(length);
+        int start = buffer.position();
+        buffer.put(CHECKPOINT).putShort((short) 0).putLong(time);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(start, length));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private static void putBuild(ByteBuffer buffer, JobStatusSnapshot.Build build) {
+        if (build == null) {
+            buffer.putInt(0).putLong(0).putLong(0).put((byte) 0);
+        } else {
+            buffer.putInt(build.getNumber())
+                    .putLong(build.getTimestamp())
+                    .putLong(build.getDuration())
+                    .put(build.getResultOrdinal());
+        }
+    }
+
+    private static JobStatusSnapshot.Build getBuild(ByteBuffer buffer) {
+        int number = buffer.getInt();
+        long timestamp = buffer.getLong();
+        long duration = buffer.getLong();
+        byte result = buffer.get();
+        return number == 0 ? null : new JobStatusSnapshot.Build(number, timestamp, duration, result);
+    }
+}
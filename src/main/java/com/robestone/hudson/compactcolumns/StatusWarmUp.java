@@ -0,0 +1,264 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.init.InitMilestone;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.View;
+import hudson.model.ViewGroup;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.views.ListViewColumn;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+/**
+ * Reads the statuses of all jobs shown in views with compact columns into {@link JobStatusCache}
+ * once Jenkins has started, so the first one to open a large view does not wait for all of its
+ * builds to be loaded.
+ *
+ * <p>The jobs are read on a few threads of low priority. Requests never wait for the warm-up, a
+ * job it has not got to yet is read by the request itself, just like without it.
+ *
+ * <p>The warm-up also compares the snapshots that came from the {@link StatusIndex} to the jobs, even
+ * when it is turned off otherwise.
+ */
+public final class StatusWarmUp {
+
+    private static final Logger LOGGER = Logger.getLogger(StatusWarmUp.class.getName());
+
+    static final boolean DISABLED = SystemProperties.getBoolean(StatusWarmUp.class.getName() + ".disabled");
+
+    static final int THREADS = SystemProperties.getInteger(StatusWarmUp.class.getName() + ".threads", 2);
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final StatusWarmUp INSTANCE = new StatusWarmUp();
+
+    private final ThreadPoolExecutor executor;
+
+    /** Bumped by every warm-up, so the threads of one that was started over stop. */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private volatile Progress progress;
+
+    private StatusWarmUp() {
+        executor = new ThreadPoolExecutor(
+                THREADS,
+                THREADS,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                StatusWarmUp::newThread);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static StatusWarmUp get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Once all items are loaded, at startup and after "reload configuration from disk", which makes
+     * {@link JobStatusCache} forget everything. The items are loaded by {@link InitMilestone#JOB_LOADED},
+     * but {@link hudson.model.listeners.ItemListener#onLoaded} is only fired after the {@link
+     * InitMilestone#COMPLETED} initializers have run. This is the only trigger, an initializer would
+     * start a warm-up that {@code onLoaded} throws away again, and the jobs would be read twice.
+     */
+    static void afterLoad() {
+        get().start();
+    }
+
+    private static Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "Compact columns warm-up");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setContextClassLoader(StatusWarmUp.class.getClassLoader());
+        return thread;
+    }
+
+    /** Starts over, for when everything that was read before has been forgotten. */
+    void start() {
+        int current = generation.incrementAndGet();
+        executor.execute(() -> {
+            List<Job<?, ?>> jobs;
+            try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                Set<Job<?, ?>> collected = new LinkedHashSet<>();
+                if (!DISABLED) {
+                    collected.addAll(collectJobs(Jenkins.get()));
+                }
+                collected.addAll(collectIndexedJobs(Jenkins.get(), StatusIndex.get()));
+                jobs = new ArrayList<>(collected);
+            }
+            Progress started = new Progress(current, jobs, System.currentTimeMillis());
+            if (generation.get() != current) {
+                return;
+            }
+            progress = started;
+            LOGGER.fine(() -> "Reading the statuses of " + jobs.size() + " jobs");
+            for (int i = 0; i < THREADS; i++) {
+                executor.execute(() -> warmUp(started, current));
+            }
+        });
+    }
+
+    private void warmUp(Progress progress, int current) {
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            Job<?, ?> job;
+            while (generation.get() == current && (job = progress.next()) != null) {
+                try {
+                    JobStatusCache.get().getSnapshot(job);
+                    JobStatusCache.get().validate(job);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.FINE, "Cannot read the statuses of " + job.getFullName(), e);
+                }
+                if (progress.done()) {
+                    LOGGER.info(() -> "Read the statuses of " + progress.getTotal() + " jobs in compact columns in "
+                            + progress.getMillis() + " ms");
+                }
+            }
+        }
+    }
+
+    /** The jobs of all views that have compact columns, in the order of the views. */
+    static List<Job<?, ?>> collectJobs(Jenkins jenkins) {
+        List<View> views = new ArrayList<>();
+        collectViews(jenkins.getViews(), views);
+        for (Item item : jenkins.allItems()) {
+            if (item instanceof ViewGroup group) {
+                collectViews(group.getViews(), views);
+            }
+        }
+        Set<Job<?, ?>> jobs = new LinkedHashSet<>();
+        for (View view : views) {
+            if (hasCompactColumns(view)) {
+                for (Item item : view.getItems()) {
+                    if (item instanceof Job<?, ?> job) {
+                        jobs.add(job);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(jobs);
+    }
+
+    /** The jobs in the status index, whose snapshots have to be validated. */
+    static List<Job<?, ?>> collectIndexedJobs(Jenkins jenkins, StatusIndex index) {
+        List<Job<?, ?>> jobs = new ArrayList<>();
+        if (index == null) {
+            return jobs;
+        }
+        for (String fullName : index.getNames()) {
+            Job<?, ?> job = jenkins.getItemByFullName(fullName, Job.class);
+            if (job != null) {
+                jobs.add(job);
+            } else {
+                // deleted or moved while Jenkins was not running
+                index.remove(fullName);
+            }
+        }
+        return jobs;
+    }
+
+    private static void collectViews(Collection<View> group, List<View> views) {
+        for (View view : group) {
+            views.add(view);
+            if (view instanceof ViewGroup nested) {
+                collectViews(nested.getViews(), views);
+            }
+        }
+    }
+
+    private static boolean hasCompactColumns(View view) {
+        for (ListViewColumn column : view.getColumns()) {
+            if (column instanceof AbstractCompactColumn) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return the latest warm-up, or null if there was none */
+    public Progress getProgress() {
+        return progress;
+    }
+
+    /** For tests, waits until the warm-up has read all jobs. */
+    boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Progress progress;
+        while ((progress = this.progress) == null || progress.generation != generation.get() || !progress.isDone()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    public static final class Progress {
+        private final int generation;
+        private final int total;
+        private final long startedAt;
+        /** Let go of once done, so deleted jobs are not kept in memory. */
+        private volatile List<Job<?, ?>> jobs;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger done = new AtomicInteger();
+        private volatile long finishedAt;
+
+        Progress(int generation, List<Job<?, ?>> jobs, long startedAt) {
+            this.generation = generation;
+            this.total = jobs.size();
+            this.jobs = jobs;
+            this.startedAt = startedAt;
+            if (jobs.isEmpty()) {
+                finishedAt = startedAt;
+            }
+        }
+
+        private Job<?, ?> next() {
+            List<Job<?, ?>> jobs = this.jobs;
+            int index = next.getAndIncrement();
+            return jobs != null && index < total ? jobs.get(index) : null;
+        }
+
+        /** @return whether that was the last job */
+        private boolean done() {
+            if (done.incrementAndGet() == total) {
+                jobs = null;
+                finishedAt = System.currentTimeMillis();
+                return true;
+            }
+            return false;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        /** @return the number of jobs whose statuses were read so far */
+        public int getRead() {
+            return done.get();
+        }
+
+        public boolean isDone() {
+            return finishedAt != 0;
+        }
+
+        /** @return how long the warm-up took, or has taken so far */
+        public long getMillis() {
+            long finishedAt = this.finishedAt;
+            return (finishedAt != 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+        }
+    }
+}
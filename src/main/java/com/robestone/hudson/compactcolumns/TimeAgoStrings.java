@@ -0,0 +1,76 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import com.robestone.hudson.compactcolumns.AbstractStatusesColumn.TimeAgoType;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import jenkins.util.SystemProperties;
+
+/**
+ * Time-ago strings of builds, each of them reused for as long as it reads the same. That is minutes
+ * for "3.2 hr" and days for "2 yr", see {@link AbstractStatusesColumn#getTimeAgoExpiry}, so most
+ * renders of a build only look it up.
+ *
+ * <p>An entry is used from the time it was formatted at until it expires. A render that formats
+ * with an earlier time, like a lazily formatted build, formats again.
+ */
+final class TimeAgoStrings {
+
+    static final int DEFAULT_MAX_SIZE =
+            SystemProperties.getInteger(TimeAgoStrings.class.getName() + ".maxSize", 20000);
+
+    private static final TimeAgoStrings INSTANCE = new TimeAgoStrings(DEFAULT_MAX_SIZE);
+
+    private final int maxSize;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    TimeAgoStrings(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    static TimeAgoStrings get() {
+        return INSTANCE;
+    }
+
+    /** Same as {@link AbstractStatusesColumn#formatTimeAgoString}. */
+    String get(Locale locale, long timestamp, long now, boolean isMultiple, TimeAgoType timeAgoType) {
+        // only dates and times tell multiple builds apart, all others share the entry
+        boolean multiple = isMultiple && timeAgoType == TimeAgoType.PREFER_DATE_TIME;
+        Key key = new Key(timestamp, locale, timeAgoType, multiple);
+        Entry entry = entries.get(key);
+        if (entry != null && now >= entry.from && now < entry.until) {
+            hits.increment();
+            return entry.string;
+        }
+        misses.increment();
+        String string = AbstractStatusesColumn.formatTimeAgoString(locale, timestamp, now, multiple, timeAgoType);
+        if (entries.size() >= maxSize) {
+            // expired entries are never removed otherwise, starting over is cheap
+            entries.clear();
+        }
+        entries.put(
+                key,
+                new Entry(string, now, AbstractStatusesColumn.getTimeAgoExpiry(timestamp, now, multiple, timeAgoType)));
+        return string;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private record Key(long timestamp, Locale locale, TimeAgoType timeAgoType, boolean multiple) {}
+
+    private record Entry(String string, long from, long until) {}
+}
@@ -0,0 +1,41 @@
+// Loads the tool-tips of status links on first hover, see CompactColumnsConfiguration#isLazyToolTips
+(function () {
+  if (window.compactColumnsLazyToolTips) {
+    return;
+  }
+  window.compactColumnsLazyToolTips = true;
+
+  document.addEventListener("mouseover", function (event) {
+    const link = event.target.closest && event.target.closest("a[data-compact-columns-build]");
+    if (!link || link.dataset.compactColumnsLoading) {
+      return;
+    }
+    const cell = link.closest("[data-compact-columns-tooltip-url]");
+    if (!cell) {
+      return;
+    }
+    link.dataset.compactColumnsLoading = "true";
+    const params = new URLSearchParams({
+      job: cell.dataset.compactColumnsJob,
+      build: link.dataset.compactColumnsBuild,
+      // the time in the tool-tip reads like the one in the cell
+      timeAgoType: cell.dataset.compactColumnsTooltipTimeAgoType,
+      multiple: link.dataset.compactColumnsTooltipMultiple,
+    });
+    fetch(cell.dataset.compactColumnsTooltipUrl + "?" + params).then(function (rsp) {
+      if (!rsp.ok) {
+        return;
+      }
+      return rsp.text().then(function (html) {
+        link.setAttribute("data-html-tooltip", html);
+        link.removeAttribute("data-compact-columns-build");
+        link.removeAttribute("data-compact-columns-tooltip-multiple");
+        // registers the tool-tip, just like for the ones that are part of the page
+        Behaviour.applySubtree(link, true);
+        if (link._tippy && link.matches(":hover")) {
+          link._tippy.show();
+        }
+      });
+    });
+  });
+})();
@@ -0,0 +1,104 @@
+// Formats the times of builds in the browser, see CompactColumnsConfiguration#isClientSideTimes
+(function () {
+  if (window.compactColumnsTimeAgo) {
+    return;
+  }
+  window.compactColumnsTimeAgo = true;
+
+  const REFRESH_MS = 20 * 1000;
+  // same as ShortTimestamp.Unit
+  const SECOND = 1000;
+  const MINUTE = 60 * SECOND;
+  const HOUR = 60 * MINUTE;
+  const DAY = 24 * HOUR;
+  const MONTH = 30 * DAY;
+  const YEAR = 365 * DAY;
+  const UNITS = [SECOND, MINUTE, HOUR, DAY, MONTH, YEAR];
+
+  function unitOf(time) {
+    for (let i = UNITS.length - 1; i > 0; i--) {
+      if (time >= UNITS[i]) {
+        return i;
+      }
+    }
+    return 0;
+  }
+
+  function roundHalfDown(number) {
+    const floor = Math.floor(number);
+    return number - floor > 0.5 ? floor + 1 : floor;
+  }
+
+  // same as ShortTimestamp.getRoundedTenths
+  function roundedTenths(number) {
+    return number >= 10 ? roundHalfDown(number) * 10 : roundHalfDown(number * 10);
+  }
+
+  // just enough of java.text.MessageFormat for the patterns of the time units
+  function formatMessage(pattern, number, numberFormat) {
+    return pattern
+      .replace(/\{0,choice,([^}]*)\}/g, function (match, choices) {
+        // the last choice whose limit is reached, or the first one below all of them
+        let result = null;
+        choices.split("|").forEach(function (choice) {
+          const at = choice.search(/[#<\u2264]/);
+          const limit = parseFloat(choice.substring(0, at));
+          if (result === null || (choice.charAt(at) === "<" ? number > limit : number >= limit)) {
+            result = choice.substring(at + 1);
+          }
+        });
+        return result;
+      })
+      .replace(/\{0\}/g, numberFormat.format(number))
+      .replace(/''/g, "'");
+  }
+
+  function shortTimestamp(diff, patterns, numberFormat) {
+    if (diff < SECOND) {
+      return formatMessage(patterns[0], 0, numberFormat);
+    }
+    const unit = unitOf(diff);
+    return formatMessage(patterns[unit], roundedTenths(diff / UNITS[unit]) / 10, numberFormat);
+  }
+
+  function render() {
+    const header = document.querySelector("[data-compact-columns-time-units]");
+    if (!header) {
+      return;
+    }
+    const locale = header.dataset.compactColumnsLocale || undefined;
+    const patterns = JSON.parse(header.dataset.compactColumnsTimeUnits);
+    const numberFormat = new Intl.NumberFormat(locale, { maximumFractionDigits: 3, useGrouping: false });
+    const date = { year: "numeric", month: "numeric", day: "numeric" };
+    const time = { hour: "numeric", minute: "2-digit" };
+    const dateFormat = new Intl.DateTimeFormat(locale, date);
+    const timeFormat = new Intl.DateTimeFormat(locale, time);
+    const dateTimeFormat = new Intl.DateTimeFormat(locale, Object.assign({}, date, time));
+    const now = new Date();
+
+    document.querySelectorAll("[data-compact-columns-time]").forEach(function (span) {
+      const then = new Date(parseInt(span.dataset.compactColumnsTime, 10));
+      const type = span.dataset.compactColumnsTimeAgoType;
+      let text;
+      if (type === "DIFF") {
+        text = shortTimestamp(now - then, patterns, numberFormat);
+      } else if (type === "PREFER_DATE_TIME" && span.dataset.compactColumnsMultiple !== "true") {
+        text = dateTimeFormat.format(then);
+      } else if (now.toDateString() === then.toDateString()) {
+        text = timeFormat.format(then);
+      } else {
+        text = dateFormat.format(then);
+      }
+      if (span.textContent !== text) {
+        span.textContent = text;
+      }
+    });
+  }
+
+  if (document.readyState === "loading") {
+    document.addEventListener("DOMContentLoaded", render);
+  } else {
+    render();
+  }
+  window.setInterval(render, REFRESH_MS);
+})();
@@ -0,0 +1,54 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+import org.netbeans.insane.scanner.ScannerUtils;
+
+@WithJenkins
+class BuildInfoTest {
+
+    private static final int ROWS = 1000;
+
+    @Test
+    void rowsDoNotRetainRuns(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        FreeStyleBuild run = j.buildAndAssertSuccess(p);
+        List<BuildInfo> compact = new ArrayList<>();
+        List<BuildInfo> pinning = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            // one build per row, like on a view of many jobs
+            JobStatusSnapshot.Build build = JobStatusSnapshot.Build.of(run);
+            compact.add(new BuildInfo(build, BuildInfo.getStableColor(), null, "Stable", "lastStableBuild", true));
+            pinning.add(new BuildInfo(
+                    run, BuildInfo.getStableColor(), null, run.getTimeInMillis(), "Stable", "lastStableBuild", true));
+        }
+
+        int compactSize = ScannerUtils.recursiveSizeOf(compact, ScannerUtils.skipNonStrongReferencesFilter());
+        int pinningSize = ScannerUtils.recursiveSizeOf(pinning, ScannerUtils.skipNonStrongReferencesFilter());
+
+        assertThat(compactSize / ROWS).as("bytes per row").isLessThan(150);
+        // everything the run refers to, all the way up to Jenkins
+        assertThat(pinningSize).isGreaterThan(compactSize * 10);
+        assertThat(compact.get(0))
+                .extracting(BuildInfo::getNumber, BuildInfo::getBuildTime)
+                .containsExactly(run.number, run.getTimeInMillis());
+    }
+
+    @Test
+    void resultIsKeptAsOrdinal() {
+        for (Result result : new Result[] {
+            Result.SUCCESS, Result.UNSTABLE, Result.FAILURE, Result.NOT_BUILT, Result.ABORTED, null
+        }) {
+            assertThat(new JobStatusSnapshot.Build(1, 2, 3, result).getResult()).isSameAs(result);
+        }
+    }
+}
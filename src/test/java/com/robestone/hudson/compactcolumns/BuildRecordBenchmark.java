@@ -0,0 +1,103 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.xml.parsers.DocumentBuilderFactory;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.w3c.dom.Document;
+
+/**
+ * Reading what the columns need from the build records of a dashboard, against parsing each record
+ * completely. Jenkins does more than that when it loads a build, as every action gets unmarshalled
+ * too, so a full parse is a lower bound of what is saved.
+ */
+@JmhBenchmark
+public class BuildRecordBenchmark {
+
+    private static final int JOBS = 100;
+
+    @State(Scope.Benchmark)
+    public static class Records {
+        /** Records with many actions, like those of builds with test results or many parameters. */
+        @Param({"10", "1000"})
+        public int actions;
+
+        Path dir;
+        Path[] files;
+        DocumentBuilderFactory factory;
+
+        @Setup
+        public void setup() throws Exception {
+            dir = Files.createTempDirectory("build-records");
+            files = new Path[JOBS];
+            for (int i = 0; i < JOBS; i++) {
+                files[i] = dir.resolve(i + ".xml");
+                Files.writeString(files[i], record(i), StandardCharsets.UTF_8);
+            }
+            factory = DocumentBuilderFactory.newInstance();
+        }
+
+        @TearDown
+        public void tearDown() throws Exception {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+            Files.delete(dir);
+        }
+
+        private String record(int number) {
+            StringBuilder xml = new StringBuilder("<?xml version='1.1' encoding='UTF-8'?>\n<build>\n  <actions>\n");
+            for (int i = 0; i < actions; i++) {
+                xml.append("    <hudson.model.ParametersAction><parameters><hudson.model.StringParameterValue>")
+                        .append("<name>PARAM_")
+                        .append(i)
+                        .append("</name><value>value of parameter ")
+                        .append(i)
+                        .append("</value></hudson.model.StringParameterValue></parameters>")
+                        .append("</hudson.model.ParametersAction>\n");
+            }
+            return xml.append("  </actions>\n  <queueId>")
+                    .append(number)
+                    .append("</queueId>\n  <timestamp>1700000000000</timestamp>\n")
+                    .append("  <startTime>1700000000005</startTime>\n  <result>SUCCESS</result>\n")
+                    .append("  <duration>90000</duration>\n  <charset>UTF-8</charset>\n  <keepLog>false</keepLog>\n")
+                    .append("</build>\n")
+                    .toString();
+        }
+    }
+
+    @Benchmark
+    public long partialRead(Records records) throws Exception {
+        long sum = 0;
+        for (int i = 0; i < JOBS; i++) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(records.files[i]))) {
+                sum += BuildRecordReader.read(in, i).getTimestamp();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long fullParse(Records records) throws Exception {
+        long sum = 0;
+        for (int i = 0; i < JOBS; i++) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(records.files[i]))) {
+                Document document = records.factory.newDocumentBuilder().parse(in);
+                sum += Long.parseLong(document.getElementsByTagName("timestamp")
+                        .item(0)
+                        .getTextContent());
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,114 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class BuildRecordReaderTest {
+
+    @Test
+    void buildsThatAreNotLoadedAreReadFromTheirRecords(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        j.buildAndAssertSuccess(p);
+        p.getBuildersList().add(new FailureBuilder());
+        j.buildAndAssertStatus(Result.FAILURE, p);
+        j.jenkins.reload();
+        p = j.jenkins.getItemByFullName("p", FreeStyleProject.class);
+        assertThat(BuildRecordReader.readPermalinks(p)).containsEntry("lastStableBuild", 1);
+
+        JobStatusSnapshot snapshot = JobStatusSnapshot.of(p);
+        assertThat(p.getLazyBuildMixIn()._getRuns().getLoadedBuilds()).doesNotContainKey(1);
+
+        FreeStyleBuild stable = p.getBuildByNumber(1);
+        assertThat(snapshot.getLastStableBuild())
+                .extracting(
+                        JobStatusSnapshot.Build::getNumber,
+                        JobStatusSnapshot.Build::getTimestamp,
+                        JobStatusSnapshot.Build::getDuration,
+                        JobStatusSnapshot.Build::getResult)
+                .containsExactly(1, stable.getTimeInMillis(), stable.getDuration(), Result.SUCCESS);
+        assertThat(snapshot.getLastFailedBuild().getResult()).isEqualTo(Result.FAILURE);
+        assertThat(snapshot.getLastCompletedBuild().getNumber()).isEqualTo(2);
+    }
+
+    @Test
+    void onlyBuildsReadFromDiskAreTraced(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("p");
+        j.buildAndAssertSuccess(p);
+        p.getBuildersList().add(new FailureBuilder());
+        j.buildAndAssertStatus(Result.FAILURE, p);
+        j.jenkins.reload();
+        FreeStyleProject reloaded = j.jenkins.getItemByFullName("p", FreeStyleProject.class);
+        SlowCellTracer tracer = SlowCellTracer.get();
+        tracer.setEnabled(true);
+        try {
+            SlowCellTracer.Span span = tracer.start();
+            JobStatusSnapshot.of(reloaded);
+            tracer.end(span, reloaded, AllStatusesColumn.class, SlowCellTracer.Part.BUILDS);
+            assertThat(tracer.getSlowestJobs().get(0).getBuildsRead()).isPositive();
+
+            tracer.clear();
+            reloaded.getBuildByNumber(1);
+            reloaded.getBuildByNumber(2);
+            span = tracer.start();
+            JobStatusSnapshot.of(reloaded);
+            tracer.end(span, reloaded, AllStatusesColumn.class, SlowCellTracer.Part.BUILDS);
+            assertThat(tracer.getSlowestJobs().get(0).getBuildsRead()).isZero();
+        } finally {
+            tracer.setEnabled(false);
+            tracer.clear();
+        }
+    }
+
+    @Test
+    void onlyTopLevelElementsAreRead() throws Exception {
+        String xml = "<?xml version='1.1' encoding='UTF-8'?>\n"
+                + "<build>\n"
+                + "  <actions>\n"
+                + "    <some.Action><timestamp>1</timestamp><result>FAILURE</result></some.Action>\n"
+                + "  </actions>\n"
+                + "  <queueId>3</queueId>\n"
+                + "  <timestamp>1700000000000</timestamp>\n"
+                + "  <startTime>1700000000005</startTime>\n"
+                + "  <result>UNSTABLE</result>\n"
+                + "  <duration>4711</duration>\n"
+                + "  <charset>UTF-8</charset>\n"
+                + "</build>\n";
+
+        JobStatusSnapshot.Build build =
+                BuildRecordReader.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), 7);
+
+        assertThat(build.getNumber()).isEqualTo(7);
+        assertThat(build.getTimestamp()).isEqualTo(1700000000000L);
+        assertThat(build.getDuration()).isEqualTo(4711);
+        assertThat(build.getResult()).isEqualTo(Result.UNSTABLE);
+    }
+
+    @Test
+    void incompleteRecordsAreLookedUpTheNormalWay() throws Exception {
+        String xml = "<build><timestamp>1700000000000</timestamp></build>";
+
+        assertThat(BuildRecordReader.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), 1))
+                .isNull();
+    }
+
+    @Test
+    void permalinks() {
+        Map<String, Integer> permalinks =
+                BuildRecordReader.parsePermalinks(List.of("lastStableBuild 5", "lastFailedBuild -1", "broken x", ""));
+
+        assertThat(permalinks).containsOnly(Map.entry("lastStableBuild", 5), Map.entry("lastFailedBuild", -1));
+    }
+}
@@ -0,0 +1,117 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import com.robestone.hudson.compactcolumns.AbstractStatusesColumn.TimeAgoType;
+import hudson.model.Job;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The work done for the columns of a single dashboard, one operation renders every job of the view.
+ *
+ * <p>Histories are generated from a fixed seed and the locale is fixed, so the results only depend
+ * on the code being measured.
+ */
+@JmhBenchmark
+public class ColumnRenderingBenchmark {
+
+    private static final long SEED = 4711;
+    private static final int BUILDS_PER_JOB = 30;
+
+    @State(Scope.Benchmark)
+    public static class Dashboard {
+        @Param({"20", "2000"})
+        public int jobCount;
+
+        @Param({"DIFF", "PREFER_DATES", "PREFER_DATE_TIME"})
+        public TimeAgoType timeAgoType;
+
+        @Param({AbstractCompactColumn.colorblindHint_none, AbstractCompactColumn.colorblindHint_Underline})
+        public String colorblindHint;
+
+        final Locale locale = Locale.US;
+        List<Job<?, ?>> jobs;
+        AllStatusesColumn statusesColumn;
+        JobNameColorColumn jobNameColumn;
+        List<BuildInfo> builds;
+
+        @Setup
+        public void setup() {
+            jobs = SyntheticJobs.jobs(jobCount, BUILDS_PER_JOB, SEED, System.currentTimeMillis());
+            statusesColumn = new AllStatusesColumn(colorblindHint, false, timeAgoType.name(), 0);
+            jobNameColumn = new JobNameColorColumn(true, false, true, colorblindHint);
+            builds = new ArrayList<>();
+            for (Job<?, ?> job : jobs) {
+                // also reads the snapshots, like the first rendering after startup
+                builds.addAll(statusesColumn.getBuilds(job, locale));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getBuilds(Dashboard dashboard, Blackhole blackhole) {
+        for (Job<?, ?> job : dashboard.jobs) {
+            blackhole.consume(dashboard.statusesColumn.getBuilds(job, dashboard.locale));
+        }
+    }
+
+    @Benchmark
+    public Map<Job<?, ?>, List<BuildInfo>> getViewBuilds(Dashboard dashboard) {
+        return dashboard.statusesColumn.getViewBuilds(dashboard.jobs, dashboard.locale, 0);
+    }
+
+    @Benchmark
+    public void getColumnSortKey(Dashboard dashboard, Blackhole blackhole) {
+        for (Job<?, ?> job : dashboard.jobs) {
+            blackhole.consume(dashboard.statusesColumn.getColumnSortKey(job));
+        }
+    }
+
+    @Benchmark
+    public void isBuildsEmpty(Dashboard dashboard, Blackhole blackhole) {
+        for (Job<?, ?> job : dashboard.jobs) {
+            blackhole.consume(dashboard.statusesColumn.isBuildsEmpty(job));
+        }
+    }
+
+    @Benchmark
+    public void getTimeAgoString(Dashboard dashboard, Blackhole blackhole) {
+        for (BuildInfo build : dashboard.builds) {
+            blackhole.consume(AbstractStatusesColumn.getTimeAgoString(
+                    dashboard.locale, build.getBuildTime(), build.isMultipleBuilds(), dashboard.timeAgoType));
+        }
+    }
+
+    /** Without {@link TimeAgoStrings}, what {@link #getTimeAgoString} costs whenever a string expires. */
+    @Benchmark
+    public void formatTimeAgoString(Dashboard dashboard, Blackhole blackhole) {
+        long now = System.currentTimeMillis();
+        for (BuildInfo build : dashboard.builds) {
+            blackhole.consume(AbstractStatusesColumn.formatTimeAgoString(
+                    dashboard.locale, build.getBuildTime(), now, build.isMultipleBuilds(), dashboard.timeAgoType));
+        }
+    }
+
+    @Benchmark
+    public void getBuildDescriptionToolTip(Dashboard dashboard, Blackhole blackhole) {
+        for (BuildInfo build : dashboard.builds) {
+            blackhole.consume(AbstractStatusesColumn.getBuildDescriptionToolTip(build, dashboard.locale));
+        }
+    }
+
+    @Benchmark
+    public void jobNameStyle(Dashboard dashboard, Blackhole blackhole) {
+        for (Job<?, ?> job : dashboard.jobs) {
+            blackhole.consume(dashboard.jobNameColumn.getStyle(job));
+        }
+    }
+}
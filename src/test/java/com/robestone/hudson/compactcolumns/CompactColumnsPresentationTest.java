@@ -4,22 +4,37 @@
 package com.robestone.hudson.compactcolumns;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
+import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.model.Job;
 import hudson.model.ListView;
+import hudson.model.Result;
+import hudson.model.View;
 import hudson.views.JobColumn;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
 import org.htmlunit.html.DomElement;
 import org.htmlunit.html.DomNode;
 import org.htmlunit.html.HtmlAnchor;
 import org.htmlunit.html.HtmlPage;
 import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.FailureBuilder;
 import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
 import org.jvnet.hudson.test.MockFolder;
+import org.jvnet.hudson.test.TestExtension;
 import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
 
 @WithJenkins
@@ -87,4 +102,282 @@ class CompactColumnsPresentationTest {
             assertThat(tooltip).startsWith("&lt;i");
         }
     }
+
+    @Test
+    void lazyToolTips(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("proj1");
+        j.buildAndAssertSuccess(p);
+        CompactColumnsConfiguration.get().setLazyToolTips(true);
+        ListView v = new ListView("lazyView");
+        v.setIncludeRegex(".*");
+        v.setColumns(Arrays.asList(
+                new JobColumn(),
+                new AllStatusesColumn(AbstractCompactColumn.colorblindHint_none, false, "PREFER_DATE_TIME", 0)));
+        j.jenkins.addView(v);
+
+        JenkinsRule.WebClient wc = j.createWebClient();
+        HtmlPage page = wc.goTo("view/lazyView/");
+        List<HtmlAnchor> links = page.getAnchors().stream()
+                .filter(a -> a.hasAttribute("data-compact-columns-build"))
+                .collect(Collectors.toList());
+        assertThat(links).hasSize(1);
+        assertThat(links.get(0).getAttribute("data-compact-columns-build")).isEqualTo("1");
+        assertThat(links.get(0).hasAttribute("tooltip")).isFalse();
+
+        String toolTipUrl = "descriptorByName/" + AllStatusesColumn.class.getName() + "/toolTip";
+        String toolTip = wc.goTo(toolTipUrl + "?job=proj1&build=1", null)
+                .getWebResponse()
+                .getContentAsString();
+        assertThat(toolTip).contains("Build #1").contains("Stable");
+
+        wc.setThrowExceptionOnFailingStatusCode(false);
+        assertThat(wc.goTo(toolTipUrl + "?job=proj1&build=2", null)
+                        .getWebResponse()
+                        .getStatusCode())
+                .isEqualTo(404);
+        assertThat(wc.goTo(toolTipUrl + "?job=unknown&build=1", null)
+                        .getWebResponse()
+                        .getStatusCode())
+                .isEqualTo(404);
+
+        // the same tool-tips as in the page, also for a cell with more than one build
+        p.getBuildersList().add(new FailureBuilder());
+        j.buildAndAssertStatus(Result.FAILURE, p);
+        List<String> lazy = wc.goTo("view/lazyView/").getAnchors().stream()
+                .filter(a -> a.hasAttribute("data-compact-columns-build"))
+                .map(a -> {
+                    DomElement cell = a.getEnclosingElement("td");
+                    String query = "?job=" + cell.getAttribute("data-compact-columns-job")
+                            + "&build=" + a.getAttribute("data-compact-columns-build")
+                            + "&timeAgoType=" + cell.getAttribute("data-compact-columns-tooltip-time-ago-type")
+                            + "&multiple=" + a.getAttribute("data-compact-columns-tooltip-multiple");
+                    try {
+                        return wc.goTo(toolTipUrl + query, null).getWebResponse().getContentAsString();
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                })
+                .collect(Collectors.toList());
+        CompactColumnsConfiguration.get().setLazyToolTips(false);
+        List<String> eager = wc.goTo("view/lazyView/").getAnchors().stream()
+                .map(a -> a.getAttribute("data-html-tooltip"))
+                .filter(t -> t.contains("Build #"))
+                .collect(Collectors.toList());
+        assertThat(lazy).hasSize(2).isEqualTo(eager);
+    }
+
+    @Test
+    void cssClasses(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("proj1");
+        j.buildAndAssertSuccess(p);
+        p.getBuildersList().add(new FailureBuilder());
+        j.buildAndAssertStatus(Result.FAILURE, p);
+        CompactColumnsConfiguration.get().setCssClasses(true);
+        ListView v = new ListView("cssView");
+        v.setIncludeRegex(".*");
+        v.setColumns(Arrays.asList(
+                new JobNameColorColumn(true, false, false, AbstractCompactColumn.colorblindHint_Underline),
+                new AllStatusesColumn(AbstractCompactColumn.colorblindHint_Underline, false, null, 0)));
+        j.jenkins.addView(v);
+
+        HtmlPage page = j.createWebClient().goTo("view/cssView/");
+
+        assertThat(page.getWebResponse().getContentAsString()).contains("compact-columns.css");
+        assertThat(page.getAnchors())
+                .filteredOn(a -> a.getAttribute("class").contains("compact-columns"))
+                .allMatch(a -> !a.hasAttribute("style"))
+                .extracting(a -> a.getHrefAttribute().replaceFirst(".*/job/", "job/"), a -> a.getAttribute("class"))
+                .containsExactly(
+                        tuple(
+                                "job/proj1/",
+                                "jenkins-table__link compact-columns-failed compact-columns-hint-solid"),
+                        tuple(
+                                "job/proj1/lastFailedBuild",
+                                "jenkins-table__link compact-columns-status compact-columns-failed"
+                                        + " compact-columns-hint-solid compact-columns-bold"),
+                        tuple(
+                                "job/proj1/lastStableBuild",
+                                "jenkins-table__link compact-columns-status compact-columns-stable"
+                                        + " compact-columns-hint-none"));
+    }
+
+    @Test
+    void styleSheetIsIncludedByTheHeader(JenkinsRule j) throws Exception {
+        for (int i = 0; i < 3; i++) {
+            j.buildAndAssertSuccess(j.createFreeStyleProject("proj" + i));
+        }
+        CompactColumnsConfiguration.get().setCssClasses(true);
+        ListView v = new ListView("nameView");
+        v.setIncludeRegex(".*");
+        v.setColumns(List.of(
+                new JobNameColorColumn(true, false, false, AbstractCompactColumn.colorblindHint_Underline)));
+        j.jenkins.addView(v);
+
+        HtmlPage page = j.createWebClient().goTo("view/nameView/");
+
+        assertThat(page.getWebResponse().getContentAsString()).contains("compact-columns.css");
+        assertThat(page.querySelectorAll("#projectstatus tbody link")).isEmpty();
+    }
+
+    @Test
+    void clientSideTimes(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("proj1");
+        FreeStyleBuild build = j.buildAndAssertSuccess(p);
+        CompactColumnsConfiguration.get().setClientSideTimes(true);
+        ListView v = new ListView("timesView");
+        v.setIncludeRegex(".*");
+        v.setColumns(Arrays.asList(new AllStatusesColumn(AbstractCompactColumn.colorblindHint_none, false, null, 0)));
+        j.jenkins.addView(v);
+
+        HtmlPage page = j.createWebClient().goTo("view/timesView/");
+
+        DomElement header = page.querySelector("th[data-compact-columns-time-units]");
+        assertThat(header.getAttribute("data-compact-columns-locale")).isEqualTo("en-US");
+        assertThat(header.getAttribute("data-compact-columns-time-units"))
+                .isEqualTo("[\"{0} sec\",\"{0} min\",\"{0} hr\","
+                        + "\"{0} {0,choice,0#days|1#day|1<days}\",\"{0} mo\",\"{0} yr\"]");
+        DomElement time = page.querySelector("span[data-compact-columns-time]");
+        assertThat(time.getAttribute("data-compact-columns-time")).isEqualTo(String.valueOf(build.getTimeInMillis()));
+        assertThat(time.getAttribute("data-compact-columns-time-ago-type")).isEqualTo("DIFF");
+        assertThat(time.getTextContent()).matches("[0-9.]+ (sec|min)");
+    }
+
+    @Test
+    void buildsComputedOncePerRow(JenkinsRule j) throws Exception {
+        for (int i = 0; i < 3; i++) {
+            j.buildAndAssertSuccess(j.createFreeStyleProject("proj" + i));
+        }
+        ListView v = new ListView("countingView");
+        v.setIncludeRegex(".*");
+        v.setColumns(Arrays.asList(new JobColumn(), new CountingColumn()));
+        j.jenkins.addView(v);
+
+        CountingColumn.computed.set(0);
+        HtmlPage page = j.createWebClient().goTo("view/countingView/");
+
+        assertThat(page.getAnchors()).anyMatch(a -> a.getHrefAttribute().endsWith("/proj0/lastStableBuild"));
+        assertThat(CountingColumn.computed).hasValue(3);
+    }
+
+    @Test
+    void viewBuildsMatchRowByRow(JenkinsRule j) throws Exception {
+        FreeStyleProject stable = j.createFreeStyleProject("stable");
+        j.buildAndAssertSuccess(stable);
+        FreeStyleProject failed = j.createFreeStyleProject("failed");
+        failed.getBuildersList().add(new FailureBuilder());
+        j.buildAndAssertStatus(Result.FAILURE, failed);
+        j.buildAndAssertStatus(Result.FAILURE, failed);
+        FreeStyleProject notBuilt = j.createFreeStyleProject("notBuilt");
+        MockFolder folder = j.createFolder("folder");
+
+        AllStatusesColumn column =
+                new AllStatusesColumn(AbstractCompactColumn.colorblindHint_Underline, false, "PREFER_DATES", 0);
+        Map<Job<?, ?>, List<BuildInfo>> viewBuilds =
+                column.getViewBuilds(Arrays.asList(stable, folder, failed, notBuilt, stable), Locale.US);
+
+        assertThat(viewBuilds).containsOnlyKeys(stable, failed, notBuilt);
+        for (Map.Entry<Job<?, ?>, List<BuildInfo>> entry : viewBuilds.entrySet()) {
+            assertThat(entry.getValue())
+                    .extracting(BuildInfo::getUrlPart, BuildInfo::getStatus, BuildInfo::getTimeAgoString)
+                    .containsExactlyElementsOf(column.getBuilds(entry.getKey(), Locale.US).stream()
+                            .map(b -> tuple(b.getUrlPart(), b.getStatus(), b.getTimeAgoString()))
+                            .collect(Collectors.toList()));
+        }
+        assertThat(viewBuilds.get(notBuilt)).isEmpty();
+    }
+
+    @Test
+    void overriddenBuildsAreUsedForLargeViews(JenkinsRule j) throws Exception {
+        for (int i = 0; i < 3; i++) {
+            j.buildAndAssertSuccess(j.createFreeStyleProject("proj" + i));
+        }
+        CompactColumnsConfiguration.get().setParallelThreshold(2);
+        ListView v = new ListView("hidingView");
+        v.setIncludeRegex(".*");
+        v.setColumns(Arrays.asList(new JobColumn(), new HidingColumn()));
+        j.jenkins.addView(v);
+
+        HtmlPage page = j.createWebClient().goTo("view/hidingView/");
+
+        assertThat(page.getAnchors()).noneMatch(a -> a.getHrefAttribute().endsWith("/lastStableBuild"));
+        assertThat(HidingColumn.hidden).containsExactlyInAnyOrder("proj0", "proj1", "proj2");
+    }
+
+    @Test
+    void largeViewsComputedInParallelAsTheUser(JenkinsRule j) throws Exception {
+        for (int i = 0; i < 5; i++) {
+            j.buildAndAssertSuccess(j.createFreeStyleProject("proj" + i));
+        }
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        j.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.READ, Item.READ, View.READ)
+                .everywhere()
+                .to("alice"));
+        CompactColumnsConfiguration.get().setParallelThreshold(3);
+        ListView v = new ListView("parallelView");
+        v.setIncludeRegex(".*");
+        v.setColumns(Arrays.asList(new JobColumn(), new RecordingColumn()));
+        j.jenkins.addView(v);
+
+        HtmlPage page = j.createWebClient().login("alice").goTo("view/parallelView/");
+
+        assertThat(page.getAnchors())
+                .filteredOn(a -> a.getHrefAttribute().endsWith("/lastStableBuild"))
+                .hasSize(5);
+        assertThat(RecordingColumn.users).containsOnly("alice");
+        assertThat(RecordingColumn.threads).allMatch(name -> name.startsWith("Compact columns statuses"));
+    }
+
+    public static class RecordingColumn extends AllStatusesColumn {
+        static final Set<String> users = ConcurrentHashMap.newKeySet();
+        static final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        public RecordingColumn() {
+            super(colorblindHint_none, false, null, 0);
+        }
+
+        @Override
+        List<BuildInfo> computeBuilds(Job<?, ?> job, RenderBatch batch) {
+            users.add(Jenkins.getAuthentication2().getName());
+            threads.add(Thread.currentThread().getName());
+            return super.computeBuilds(job, batch);
+        }
+
+        @TestExtension("largeViewsComputedInParallelAsTheUser")
+        public static class DescriptorImpl extends AbstractCompactColumnDescriptor {}
+    }
+
+    public static class HidingColumn extends AllStatusesColumn {
+        static final Set<String> hidden = ConcurrentHashMap.newKeySet();
+
+        public HidingColumn() {
+            super(colorblindHint_none, false, null, 0);
+        }
+
+        @Override
+        protected List<BuildInfo> computeBuilds(Job<?, ?> job, Locale locale) {
+            hidden.add(job.getName());
+            return List.of();
+        }
+
+        @TestExtension("overriddenBuildsAreUsedForLargeViews")
+        public static class DescriptorImpl extends AbstractCompactColumnDescriptor {}
+    }
+
+    public static class CountingColumn extends AllStatusesColumn {
+        static final AtomicInteger computed = new AtomicInteger();
+
+        public CountingColumn() {
+            super(colorblindHint_none, false, null, 0);
+        }
+
+        @Override
+        List<BuildInfo> computeBuilds(Job<?, ?> job, RenderBatch batch) {
+            computed.incrementAndGet();
+            return super.computeBuilds(job, batch);
+        }
+
+        @TestExtension("buildsComputedOncePerRow")
+        public static class DescriptorImpl extends AbstractCompactColumnDescriptor {}
+    }
 }
@@ -12,6 +12,7 @@ import hudson.model.Result;
 import hudson.model.Run;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -169,6 +170,144 @@ class CompactColumnsTest {
         doTestBuilds("A", "A", "A", "A");
     }
 
+    /**
+     * Same histories as {@link #getBuilds()}, plus aborted builds that only some columns show, and jobs
+     * without any status to show.
+     */
+    static final List<String> HISTORIES = Arrays.asList(
+            "SSFFUFUS", "FSSFFUFUS", "FSSFF", "FSS", "F", "FFF", "SFFF", "UFF", "FFUU", "USF", "AAUSFAA", "USAF", "A",
+            "AF", "AU", "NA", "N", "");
+
+    /** Every kind of status column, with every option that changes which builds are shown. */
+    static List<AbstractStatusesColumn> allStatusesColumns() {
+        return Arrays.asList(
+                new LastStableAndUnstableColumn(),
+                new LastSuccessAndFailedColumn(),
+                new AllStatusesColumn(null, false, null, 0),
+                new AllStatusesColumn(null, true, null, 0),
+                new AllStatusesColumn(null, false, null, 1),
+                new AllStatusesColumn(AbstractCompactColumn.colorblindHint_Underline, true, "PREFER_DATES", 1),
+                new FlagsColumn(false, false),
+                new FlagsColumn(true, true));
+    }
+
+    /** The snapshots of {@link #HISTORIES}, also while another build is running. */
+    static List<JobStatusSnapshot> allSnapshots() {
+        List<JobStatusSnapshot> snapshots = new ArrayList<>();
+        for (String history : HISTORIES) {
+            JobStatusSnapshot snapshot = SyntheticJobs.snapshot(history, TEST_TIME - 1000);
+            snapshots.add(snapshot);
+            JobStatusSnapshot.Build running = new JobStatusSnapshot.Build(history.length() + 1, TEST_TIME, 0, null);
+            snapshots.add(new JobStatusSnapshot(
+                    running,
+                    snapshot.getLastCompletedBuild(),
+                    snapshot.getLastFailedBuild(),
+                    snapshot.getLastUnstableBuild(),
+                    snapshot.getLastStableBuild(),
+                    snapshot.getLastAbortedBuild()));
+        }
+        return snapshots;
+    }
+
+    @Test
+    void newestBuildIsFirstOfBuilds() {
+        RenderBatch batch = new RenderBatch(Locale.US, TEST_TIME);
+        for (JobStatusSnapshot snapshot : allSnapshots()) {
+            for (int flags = 0; flags < 8; flags++) {
+                boolean failedOnlyIfLast = (flags & 1) != 0;
+                boolean unstableOnlyIfLast = (flags & 2) != 0;
+                boolean hint = (flags & 4) != 0;
+                List<BuildInfo> builds = AbstractStatusesColumn.getBuilds(
+                        snapshot, batch, failedOnlyIfLast, unstableOnlyIfLast, true, hint, TimeAgoType.DIFF, 0);
+                BuildInfo newest = AbstractStatusesColumn.getNewestBuild(
+                        snapshot, batch, failedOnlyIfLast, unstableOnlyIfLast, hint, TimeAgoType.DIFF);
+                if (builds.isEmpty()) {
+                    assertThat(newest).isNull();
+                } else {
+                    assertThat(newest)
+                            .usingRecursiveComparison()
+                            .as("flags %d of %s", flags, snapshot.getLastBuild())
+                            .isEqualTo(builds.get(0));
+                }
+            }
+        }
+    }
+
+    @Test
+    void isBuildsEmptyAgreesWithBuilds() {
+        RenderBatch batch = new RenderBatch(Locale.US, TEST_TIME);
+        for (JobStatusSnapshot snapshot : allSnapshots()) {
+            for (AbstractStatusesColumn column : allStatusesColumns()) {
+                assertThat(column.isBuildsEmpty(snapshot))
+                        .as("%s of %s", column.getClass().getSimpleName(), snapshot.getLastBuild())
+                        .isEqualTo(column.computeBuilds(snapshot, batch).isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void sortKeyIsStartOfFirstBuild() {
+        RenderBatch batch = new RenderBatch(Locale.US, TEST_TIME);
+        for (JobStatusSnapshot snapshot : allSnapshots()) {
+            for (AbstractStatusesColumn column : allStatusesColumns()) {
+                List<BuildInfo> builds = column.computeBuilds(snapshot, batch);
+                long expected = builds.isEmpty() ? 0 : builds.get(0).getBuildTime();
+                assertThat(column.getSortKey(snapshot))
+                        .as("%s of %s", column.getClass().getSimpleName(), snapshot.getLastBuild())
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void snapshotsReadFromJobsAreShownLikeAllBuildsWereSeen() {
+        RenderBatch batch = new RenderBatch(Locale.US, TEST_TIME);
+        for (String history : HISTORIES) {
+            JobStatusSnapshot read = JobStatusSnapshot.of(SyntheticJobs.job("job", history, TEST_TIME - 1000));
+            JobStatusSnapshot seen = SyntheticJobs.snapshot(history, TEST_TIME - 1000);
+            for (AbstractStatusesColumn column : allStatusesColumns()) {
+                assertThat(column.computeBuilds(read, batch))
+                        .usingRecursiveComparison()
+                        .as("%s of %s", column.getClass().getSimpleName(), history)
+                        .isEqualTo(column.computeBuilds(seen, batch));
+            }
+        }
+    }
+
+    @Test
+    void abortedBuildIsShownWhereNothingElseIs() {
+        doTestSnapshotBuilds("AF", "A", "F", "F", "A");
+        doTestSnapshotBuilds("AU", "U", "A", "U", "A");
+    }
+
+    /** Like {@link #doTestBuilds(String, String, String, String)}, for the snapshot read from the job. */
+    private void doTestSnapshotBuilds(
+            String history,
+            String expectForLastStableAndUnstable,
+            String expectForLastSuccessAndFailed,
+            String expectForAllStatuses,
+            String expectForOnlyIfLast) {
+        JobStatusSnapshot snapshot = JobStatusSnapshot.of(SyntheticJobs.job("job", history, TEST_TIME - 1000));
+        RenderBatch batch = new RenderBatch(Locale.US, TEST_TIME);
+        assertThat(statuses(new LastStableAndUnstableColumn().computeBuilds(snapshot, batch)))
+                .isEqualTo(expectForLastStableAndUnstable);
+        assertThat(statuses(new LastSuccessAndFailedColumn().computeBuilds(snapshot, batch)))
+                .isEqualTo(expectForLastSuccessAndFailed);
+        assertThat(statuses(new AllStatusesColumn(null, false, null, 0).computeBuilds(snapshot, batch)))
+                .isEqualTo(expectForAllStatuses);
+        assertThat(statuses(new FlagsColumn(true, true).computeBuilds(snapshot, batch)))
+                .isEqualTo(expectForOnlyIfLast);
+    }
+
+    /** @return the first letter of the status of each build, most recent status first */
+    private static String statuses(List<BuildInfo> builds) {
+        StringBuilder statuses = new StringBuilder();
+        for (BuildInfo build : builds) {
+            statuses.append(build.getStatus().charAt(0));
+        }
+        return statuses.toString();
+    }
+
     private void doTestBuilds(
             String buildsSpec,
             String expectForLastStableAndUnstable,
@@ -234,6 +373,28 @@ class CompactColumnsTest {
         }
     }
 
+    /** The flags of the status columns in any combination. */
+    private static class FlagsColumn extends AbstractStatusesColumn {
+        private final boolean failedShownOnlyIfLast;
+        private final boolean unstableShownOnlyIfLast;
+
+        FlagsColumn(boolean failedShownOnlyIfLast, boolean unstableShownOnlyIfLast) {
+            super(null, null);
+            this.failedShownOnlyIfLast = failedShownOnlyIfLast;
+            this.unstableShownOnlyIfLast = unstableShownOnlyIfLast;
+        }
+
+        @Override
+        protected boolean isFailedShownOnlyIfLast() {
+            return failedShownOnlyIfLast;
+        }
+
+        @Override
+        protected boolean isUnstableShownOnlyIfLast() {
+            return unstableShownOnlyIfLast;
+        }
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
     private static class TestRun extends Run {
         public TestRun(Job job, long timestamp, Result result) {
@@ -0,0 +1,48 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import java.time.LocalDateTime;
+import java.time.chrono.IsoChronology;
+import java.time.format.FormatStyle;
+import java.util.Locale;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Formatting a build timestamp with the shared formatters, against building the formatter for each
+ * timestamp. The allocations per operation are reported as {@code gc.alloc.rate.norm}.
+ */
+@JmhBenchmark
+public class DateFormatBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Timestamp {
+        @Param({"en-US", "de", "ja-JP"})
+        public String languageTag;
+
+        Locale locale;
+        LocalDateTime time;
+
+        @Setup
+        public void setup() {
+            locale = Locale.forLanguageTag(languageTag);
+            time = LocalDateTime.of(2010, 6, 24, 16, 56);
+        }
+    }
+
+    @Benchmark
+    public String cachedFormatter(Timestamp timestamp) {
+        return AbstractStatusesColumn.formatDateTime(timestamp.time, timestamp.locale);
+    }
+
+    @Benchmark
+    public String newFormatter(Timestamp timestamp) {
+        return AbstractStatusesColumn.createFormatter(
+                        IsoChronology.INSTANCE, timestamp.locale, FormatStyle.SHORT, FormatStyle.SHORT)
+                .format(timestamp.time);
+    }
+}
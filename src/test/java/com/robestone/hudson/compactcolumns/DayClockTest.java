@@ -0,0 +1,76 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.robestone.hudson.compactcolumns.AbstractStatusesColumn.TimeAgoType;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+
+class DayClockTest {
+
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    @Test
+    void todayIsFromMidnightToMidnight() {
+        DayClock clock = DayClock.of(BERLIN);
+        long now = millis(ZonedDateTime.of(2024, 6, 12, 15, 30, 0, 0, BERLIN));
+
+        assertThat(clock.isToday(millis(ZonedDateTime.of(2024, 6, 12, 0, 0, 0, 0, BERLIN)), now))
+                .isTrue();
+        assertThat(clock.isToday(millis(ZonedDateTime.of(2024, 6, 12, 23, 59, 59, 0, BERLIN)), now))
+                .isTrue();
+        assertThat(clock.isToday(millis(ZonedDateTime.of(2024, 6, 11, 23, 59, 59, 0, BERLIN)), now))
+                .isFalse();
+        assertThat(clock.isToday(millis(ZonedDateTime.of(2024, 6, 13, 0, 0, 0, 0, BERLIN)), now))
+                .isFalse();
+        assertThat(clock.getEndOfDay(now)).isEqualTo(millis(ZonedDateTime.of(2024, 6, 13, 0, 0, 0, 0, BERLIN)));
+    }
+
+    @Test
+    void sameDayOfAnotherYearIsNotToday() {
+        DayClock clock = DayClock.of(BERLIN);
+        long now = millis(ZonedDateTime.of(2024, 6, 12, 15, 30, 0, 0, BERLIN));
+
+        assertThat(clock.isToday(millis(ZonedDateTime.of(2023, 6, 13, 15, 30, 0, 0, BERLIN)), now))
+                .isFalse();
+        assertThat(clock.isToday(millis(ZonedDateTime.of(2025, 6, 12, 15, 30, 0, 0, BERLIN)), now))
+                .isFalse();
+    }
+
+    @Test
+    void followsTheDays() {
+        DayClock clock = DayClock.of(BERLIN);
+        // 23 hours, daylight saving time starts
+        long now = millis(ZonedDateTime.of(2024, 3, 31, 12, 0, 0, 0, BERLIN));
+        assertThat(clock.getEndOfDay(now) - millis(ZonedDateTime.of(2024, 3, 31, 0, 0, 0, 0, BERLIN)))
+                .isEqualTo(23 * ShortTimestamp.ONE_HOUR_MS);
+        // back to an earlier day, like a render that started before midnight
+        now = millis(ZonedDateTime.of(2024, 3, 30, 12, 0, 0, 0, BERLIN));
+        assertThat(clock.isToday(millis(ZonedDateTime.of(2024, 3, 30, 1, 0, 0, 0, BERLIN)), now))
+                .isTrue();
+    }
+
+    @Test
+    void buildOfSameDayLastYearShowsDate() {
+        ZoneId zone = ZoneId.systemDefault();
+        ZonedDateTime now = ZonedDateTime.of(2024, 6, 12, 15, 30, 0, 0, zone);
+        long lastYear = millis(now.minusYears(1));
+        long earlierToday = millis(now.minusHours(2));
+
+        assertThat(format(lastYear, millis(now)))
+                .isEqualTo(AbstractStatusesColumn.getBuildTimeString(lastYear, Locale.US, true, false, false));
+        assertThat(format(earlierToday, millis(now)))
+                .isEqualTo(AbstractStatusesColumn.getBuildTimeString(earlierToday, Locale.US, false, true, false));
+    }
+
+    private static String format(long timestamp, long now) {
+        return AbstractStatusesColumn.formatTimeAgoString(Locale.US, timestamp, now, true, TimeAgoType.PREFER_DATES);
+    }
+
+    private static long millis(ZonedDateTime time) {
+        return time.toInstant().toEpochMilli();
+    }
+}
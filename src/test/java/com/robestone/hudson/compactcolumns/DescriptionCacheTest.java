@@ -0,0 +1,106 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import hudson.markup.MarkupFormatter;
+import hudson.markup.MarkupFormatterDescriptor;
+import hudson.model.FreeStyleProject;
+import hudson.model.Job;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class DescriptionCacheTest {
+
+    @Test
+    void translationsAreReusedWhileNothingChanges(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.setDescription("<b>first</b>");
+        DescriptionCache cache = new DescriptionCache(10);
+
+        assertThat(cache.translate(p)).isEqualTo("&lt;b&gt;first&lt;/b&gt;");
+        assertThat(cache.translate(p)).isEqualTo("&lt;b&gt;first&lt;/b&gt;");
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+
+        p.setDescription("second");
+        assertThat(cache.translate(p)).isEqualTo("second");
+        assertThat(cache.getMisses()).isEqualTo(2);
+
+        j.jenkins.setMarkupFormatter(new UpperCaseFormatter());
+        assertThat(cache.translate(p)).isEqualTo("SECOND");
+        assertThat(cache.getMisses()).isEqualTo(3);
+        assertThat(cache.getHitRate()).isEqualTo(0.25);
+    }
+
+    @Test
+    void reconfiguredJobIsTranslatedAgain(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.setDescription("description");
+        DescriptionCache cache = DescriptionCache.get();
+        cache.translate(p);
+        assertThat(cache.isCached(p)).isTrue();
+
+        j.configRoundtrip(p);
+        assertThat(cache.isCached(p)).isFalse();
+
+        cache.translate(p);
+        j.jenkins.save();
+        assertThat(cache.isCached(p)).isFalse();
+    }
+
+    @Test
+    void toolTipUsesCache(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.setDescription("description");
+        JobNameColorColumn column = new JobNameColorColumn(true, true, false, null);
+        DescriptionCache.get().invalidateAll();
+        long hits = DescriptionCache.get().getHits();
+
+        assertThat(column.getToolTip(p, Locale.US)).isEqualTo("description");
+        assertThat(column.getToolTip(p, Locale.US)).isEqualTo("description");
+        assertThat(DescriptionCache.get().getHits()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void largeViewIsTranslatedOnlyOnce() throws Exception {
+        List<Job<?, ?>> jobs = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            Job<?, ?> job = mock(Job.class, withSettings().stubOnly());
+            when(job.getDescription()).thenReturn("description " + i);
+            jobs.add(job);
+        }
+        DescriptionCache cache = new DescriptionCache(DescriptionCache.DEFAULT_MAX_SIZE);
+        MarkupFormatter formatter = new UpperCaseFormatter();
+
+        for (int render = 0; render < 2; render++) {
+            for (Job<?, ?> job : jobs) {
+                cache.translate(job, formatter);
+            }
+        }
+
+        assertThat(cache.getMisses()).isEqualTo(jobs.size());
+        assertThat(cache.getHits()).isEqualTo(jobs.size());
+    }
+
+    public static class UpperCaseFormatter extends MarkupFormatter {
+        @Override
+        public void translate(String markup, Writer output) throws IOException {
+            output.write(markup.toUpperCase(Locale.ROOT));
+        }
+
+        @TestExtension
+        public static class DescriptorImpl extends MarkupFormatterDescriptor {}
+    }
+}
@@ -0,0 +1,222 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.ListView;
+import hudson.model.Result;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockBuilder;
+import org.jvnet.hudson.test.MockFolder;
+import org.jvnet.hudson.test.UnstableBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class JobStatusCacheTest {
+
+    @Test
+    void snapshotFollowsCompletedBuilds(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        JobStatusCache cache = JobStatusCache.get();
+        assertThat(cache.getSnapshot(p).getLastBuild()).isNull();
+
+        j.buildAndAssertSuccess(p);
+        p.getBuildersList().add(new FailureBuilder());
+        j.buildAndAssertStatus(Result.FAILURE, p);
+        p.getBuildersList().replace(new UnstableBuilder());
+        j.buildAndAssertStatus(Result.UNSTABLE, p);
+
+        assertThat(cache.isCached(p)).isTrue();
+        JobStatusSnapshot snapshot = cache.getSnapshot(p);
+        assertThat(snapshot.getLastStableBuild().getNumber()).isEqualTo(1);
+        assertThat(snapshot.getLastFailedBuild().getNumber()).isEqualTo(2);
+        assertThat(snapshot.getLastUnstableBuild().getNumber()).isEqualTo(3);
+        assertThat(snapshot.getLastUnstableBuild().getResult()).isEqualTo(Result.UNSTABLE);
+        assertThat(snapshot.getLastUnstableBuild().getTimestamp())
+                .isEqualTo(p.getBuildByNumber(3).getTimeInMillis());
+        assertThat(snapshot.getLastCompletedBuild().getNumber()).isEqualTo(3);
+        assertThat(snapshot.getLastBuild().getNumber()).isEqualTo(3);
+    }
+
+    @Test
+    void lastAbortedBuildIsIndexed(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildersList().add(new MockBuilder(Result.ABORTED));
+        j.buildAndAssertStatus(Result.ABORTED, p);
+        JobStatusCache cache = JobStatusCache.get();
+        cache.invalidate(p);
+        // cold start, found by scanning the builds
+        assertThat(cache.getSnapshot(p).getLastAbortedBuild().getNumber()).isEqualTo(1);
+
+        j.buildAndAssertStatus(Result.ABORTED, p);
+        assertThat(cache.isCached(p)).isTrue();
+        assertThat(cache.getSnapshot(p).getLastAbortedBuild().getNumber()).isEqualTo(2);
+
+        p.getBuildByNumber(2).delete();
+        assertThat(cache.getSnapshot(p).getLastAbortedBuild().getNumber()).isEqualTo(1);
+    }
+
+    @Test
+    void deletedBuildInvalidates(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        j.buildAndAssertSuccess(p);
+        j.buildAndAssertSuccess(p);
+        JobStatusCache cache = JobStatusCache.get();
+        assertThat(cache.getSnapshot(p).getLastStableBuild().getNumber()).isEqualTo(2);
+
+        p.getBuildByNumber(2).delete();
+
+        assertThat(cache.isCached(p)).isFalse();
+        assertThat(cache.getSnapshot(p).getLastStableBuild().getNumber()).isEqualTo(1);
+    }
+
+    @Test
+    void staleSnapshotIsRenderedWhileReadAgain(JenkinsRule j) throws Exception {
+        CompactColumnsConfiguration.get().setMaxStaleness(60);
+        FreeStyleProject p = j.createFreeStyleProject();
+        j.buildAndAssertSuccess(p);
+        j.buildAndAssertSuccess(p);
+        JobStatusCache cache = JobStatusCache.get();
+        assertThat(cache.getSnapshot(p).getLastStableBuild().getNumber()).isEqualTo(2);
+
+        p.getBuildByNumber(2).delete();
+
+        // served right away, the refresh can only replace it afterwards
+        assertThat(cache.getSnapshot(p).getLastStableBuild().getNumber()).isEqualTo(2);
+        assertThat(cache.awaitRefreshes(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(cache.isUnvalidated(p)).isFalse();
+        assertThat(cache.getSnapshot(p).getLastStableBuild().getNumber()).isEqualTo(1);
+        assertThat(StatusIndex.get().find(p.getFullName()).getLastStableBuild().getNumber())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void staleCellsAreMarked(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("marked");
+        j.buildAndAssertSuccess(p);
+        CompactColumnsConfiguration.get().setCssClasses(true);
+        ListView view = new ListView("compact");
+        view.setIncludeRegex(".*");
+        view.setColumns(List.of(
+                new AllStatusesColumn(AbstractCompactColumn.colorblindHint_none, false, "PREFER_DATES", 0)));
+        j.jenkins.addView(view);
+        JobStatusCache cache = JobStatusCache.get();
+        cache.getSnapshot(p);
+        cache.invalidateAll();
+
+        // from the index, but only marked if stale statuses are shown on purpose
+        String unmarked = j.createWebClient().getPage(view).getWebResponse().getContentAsString();
+        assertThat(cache.isUnvalidated(p)).isTrue();
+        assertThat(unmarked).doesNotContain("compact-columns-stale");
+
+        // still cached, so there is nothing to read it again in the background
+        CompactColumnsConfiguration.get().setMaxStaleness(60);
+        String stale = j.createWebClient().getPage(view).getWebResponse().getContentAsString();
+        assertThat(cache.isUnvalidated(p)).isTrue();
+        assertThat(stale).contains("compact-columns-stale").contains("Possibly out of date");
+
+        cache.validate(p);
+        String current = j.createWebClient().getPage(view).getWebResponse().getContentAsString();
+        assertThat(current).doesNotContain("compact-columns-stale");
+    }
+
+    @Test
+    void deletedJobsAreForgotten(JenkinsRule j) throws Exception {
+        MockFolder folder = j.createFolder("folder");
+        FreeStyleProject inFolder = folder.createProject(FreeStyleProject.class, "inFolder");
+        FreeStyleProject p = j.createFreeStyleProject();
+        JobStatusCache cache = JobStatusCache.get();
+        cache.getSnapshot(inFolder);
+        cache.getSnapshot(p);
+
+        p.delete();
+        assertThat(cache.isCached(p)).isFalse();
+        assertThat(cache.isCached(inFolder)).isTrue();
+
+        folder.delete();
+        assertThat(cache.isCached(inFolder)).isFalse();
+    }
+
+    @Test
+    void renamedJobIsReadAgain(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("before");
+        JobStatusCache cache = JobStatusCache.get();
+        cache.getSnapshot(p);
+
+        p.renameTo("after");
+
+        assertThat(cache.isCached(p)).isFalse();
+    }
+
+    @Test
+    void leastRecentlyUsedIsEvicted(JenkinsRule j) throws Exception {
+        FreeStyleProject p1 = j.createFreeStyleProject();
+        FreeStyleProject p2 = j.createFreeStyleProject();
+        FreeStyleProject p3 = j.createFreeStyleProject();
+        JobStatusCache cache = new JobStatusCache(2);
+
+        cache.getSnapshot(p1);
+        cache.getSnapshot(p2);
+        cache.getSnapshot(p1);
+        cache.getSnapshot(p3);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.isCached(p1)).isTrue();
+        assertThat(cache.isCached(p2)).isFalse();
+        assertThat(cache.isCached(p3)).isTrue();
+    }
+
+    @Test
+    void snapshotsAreRenderedFromIndexUntilValidated(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("indexed");
+        j.buildAndAssertSuccess(p);
+        JobStatusCache cache = JobStatusCache.get();
+        JobStatusSnapshot live = cache.getSnapshot(p);
+        StatusIndex index = StatusIndex.get();
+        assertThat(index.find("indexed")).isEqualTo(live);
+
+        // as if the build had been deleted while Jenkins was not running
+        JobStatusSnapshot outdated = new JobStatusSnapshot(null, null, null, null, null, null);
+        index.put("indexed", outdated);
+        cache.invalidateAll();
+        assertThat(cache.getSnapshot(p)).isSameAs(outdated);
+        assertThat(cache.isUnvalidated(p)).isTrue();
+
+        cache.validate(p);
+        assertThat(cache.isUnvalidated(p)).isFalse();
+        assertThat(cache.getSnapshot(p)).isEqualTo(live);
+        assertThat(index.find("indexed")).isEqualTo(live);
+    }
+
+    @Test
+    void indexFollowsBuildsOfJobsThatAreNotCached(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("notCached");
+        j.buildAndAssertSuccess(p);
+        JobStatusCache cache = JobStatusCache.get();
+        cache.getSnapshot(p);
+        cache.invalidateAll();
+        assertThat(StatusIndex.get().find("notCached")).isNotNull();
+
+        j.buildAndAssertSuccess(p);
+
+        // read from the job again instead of the index
+        assertThat(StatusIndex.get().find("notCached")).isNull();
+        assertThat(cache.getSnapshot(p).getLastStableBuild().getNumber()).isEqualTo(2);
+        assertThat(cache.isUnvalidated(p)).isFalse();
+    }
+
+    @Test
+    void movedJobsAreRemovedFromIndex(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("before");
+        JobStatusCache.get().getSnapshot(p);
+
+        p.renameTo("after");
+
+        assertThat(StatusIndex.get().find("before")).isNull();
+    }
+}
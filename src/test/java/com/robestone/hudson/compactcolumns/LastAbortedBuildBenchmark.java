@@ -0,0 +1,45 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** The bounded scan that is left for cold starts, against the index kept in the snapshots. */
+@JmhBenchmark
+public class LastAbortedBuildBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class History {
+        @Param({"1000", "5000"})
+        public int builds;
+
+        Job<?, ?> job;
+        JobStatusCache cache;
+
+        @Setup
+        public void setup() {
+            // the aborted build is as far back as the scan goes, which is its worst case
+            int depth = JobStatusSnapshot.MAX_ABORTED_SCAN;
+            String history = "N".repeat(depth - 1) + "A" + "N".repeat(builds - depth);
+            job = SyntheticJobs.job("aborted", history, System.currentTimeMillis());
+            cache = new JobStatusCache(16);
+            cache.getSnapshot(job);
+        }
+    }
+
+    @Benchmark
+    public Run<?, ?> boundedScan(History history) {
+        return JobStatusSnapshot.scanLastAbortedBuild(history.job);
+    }
+
+    @Benchmark
+    public JobStatusSnapshot.Build indexed(History history) {
+        return history.cache.getSnapshot(history.job).getLastAbortedBuild();
+    }
+}
@@ -0,0 +1,66 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LatencyRecorderTest {
+
+    @Test
+    void bucketsCoverAllDurations() {
+        long previousUpperBound = -1;
+        for (int bucket = 0; bucket < LatencyRecorder.BUCKETS; bucket++) {
+            long upperBound = LatencyRecorder.getUpperBound(bucket);
+            assertThat(LatencyRecorder.getBucket(previousUpperBound + 1)).isEqualTo(bucket);
+            assertThat(LatencyRecorder.getBucket(upperBound)).isEqualTo(bucket);
+            previousUpperBound = upperBound;
+        }
+        assertThat(previousUpperBound).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void percentilesAreRoundedUpByAtMostAQuarter() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (long nanos = 1; nanos <= 1_000_000; nanos++) {
+            recorder.record(nanos);
+        }
+
+        assertThat(recorder.getCount()).isEqualTo(1_000_000);
+        assertThat(recorder.getMaxNanos()).isEqualTo(1_000_000);
+        assertThat(recorder.getPercentile(0.5)).isBetween(500_000L, 625_000L);
+        assertThat(recorder.getPercentile(0.9)).isBetween(900_000L, 1_000_000L);
+        assertThat(recorder.getPercentile(1)).isEqualTo(1_000_000);
+        assertThat((double) recorder.getTotalNanos() / recorder.getCount()).isCloseTo(500_000.5, within(0.1));
+    }
+
+    @Test
+    void recordsFromManyThreads() throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    recorder.record(random.nextInt(1_000_000));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(recorder.getCount()).isEqualTo(80_000);
+        assertThat(recorder.getPercentile(1)).isEqualTo(recorder.getMaxNanos());
+    }
+
+    @Test
+    void nothingRecorded() {
+        assertThat(new LatencyRecorder().getPercentile(0.99)).isZero();
+    }
+}
@@ -0,0 +1,52 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import com.robestone.hudson.compactcolumns.AbstractStatusesColumn.TimeAgoType;
+import hudson.model.Job;
+import java.util.List;
+import java.util.Locale;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The last build in the tool-tip of {@link JobNameColorColumn}, as the first of all builds against
+ * looking up only the newest one.
+ */
+@JmhBenchmark
+public class NewestBuildBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Dashboard {
+        final Locale locale = Locale.US;
+        List<Job<?, ?>> jobs;
+
+        @Setup
+        public void setup() {
+            jobs = SyntheticJobs.jobs(200, 30, 4711, System.currentTimeMillis());
+            for (Job<?, ?> job : jobs) {
+                JobStatusCache.get().getSnapshot(job);
+            }
+        }
+    }
+
+    @Benchmark
+    public void firstOfBuilds(Dashboard dashboard, Blackhole blackhole) {
+        for (Job<?, ?> job : dashboard.jobs) {
+            List<BuildInfo> builds = AbstractStatusesColumn.getBuilds(
+                    job, dashboard.locale, false, false, true, true, TimeAgoType.DIFF, 0);
+            blackhole.consume(builds.isEmpty() ? null : builds.get(0));
+        }
+    }
+
+    @Benchmark
+    public void newestBuild(Dashboard dashboard, Blackhole blackhole) {
+        for (Job<?, ?> job : dashboard.jobs) {
+            blackhole.consume(
+                    AbstractStatusesColumn.getNewestBuild(job, dashboard.locale, false, false, true, TimeAgoType.DIFF));
+        }
+    }
+}
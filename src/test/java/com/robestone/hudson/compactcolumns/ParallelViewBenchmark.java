@@ -0,0 +1,41 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import hudson.model.Job;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** The statuses of a very large view, computed by the request thread against computed in parallel. */
+@JmhBenchmark
+public class ParallelViewBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class View {
+        /** 0 computes the whole view by the request thread. */
+        @Param({"0", "1000"})
+        public int parallelThreshold;
+
+        final Locale locale = Locale.US;
+        List<Job<?, ?>> jobs;
+        AllStatusesColumn column;
+
+        @Setup
+        public void setup() {
+            jobs = SyntheticJobs.jobs(5000, 30, 4711, System.currentTimeMillis());
+            column = new AllStatusesColumn(AbstractCompactColumn.colorblindHint_Underline, false, null, 0);
+            column.getViewBuilds(jobs, locale, 0);
+        }
+    }
+
+    @Benchmark
+    public Map<Job<?, ?>, List<BuildInfo>> getViewBuilds(View view) {
+        return view.column.getViewBuilds(view.jobs, view.locale, view.parallelThreshold);
+    }
+}
@@ -0,0 +1,103 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.ListView;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import org.htmlunit.html.HtmlForm;
+import org.htmlunit.html.HtmlPage;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class RenderMetricsTest {
+
+    @Test
+    void renderingIsRecordedByColumnType(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("proj1");
+        j.buildAndAssertSuccess(p);
+        ListView v = new ListView("metricsView");
+        v.setIncludeRegex(".*");
+        v.setColumns(List.of(
+                new JobNameColorColumn(true, true, true, AbstractCompactColumn.colorblindHint_Underline),
+                new AllStatusesColumn(AbstractCompactColumn.colorblindHint_none, false, null, 0)));
+        j.jenkins.addView(v);
+        RenderMetrics.get().reset();
+
+        j.createWebClient().goTo("view/metricsView/");
+
+        assertThat(RenderMetrics.get().getStatistics())
+                .extracting(RenderMetrics.Statistics::getOperation, RenderMetrics.Statistics::getColumnType)
+                .contains(
+                        tuple("VIEW_BUILDS", "AllStatusesColumn"),
+                        tuple("BUILD_TOOL_TIP", "AllStatusesColumn"),
+                        tuple("JOB_STYLE", "JobNameColorColumn"),
+                        tuple("JOB_TOOL_TIP", "JobNameColorColumn"));
+        assertThat(RenderMetrics.get().getStatistics()).allMatch(s -> s.getCount() > 0 && s.getMaxMillis() >= 0);
+        // the rows were computed with the view, so looking them up again is not timed
+        assertThat(RenderMetrics.get().getStatistics())
+                .extracting(RenderMetrics.Statistics::getOperation)
+                .doesNotContain("BUILDS");
+
+        CompositeData[] statistics = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(RenderMetrics.OBJECT_NAME), "Statistics");
+        assertThat(statistics).hasSameSizeAs(RenderMetrics.get().getStatistics());
+    }
+
+    @Test
+    void managementPage(JenkinsRule j) throws Exception {
+        RenderMetrics.get().record(RenderMetrics.Operation.BUILDS, AllStatusesColumn.class, RenderMetrics.start());
+        JenkinsRule.WebClient wc = j.createWebClient();
+
+        HtmlPage page = wc.goTo("manage/compact-columns-metrics/");
+        assertThat(page.querySelector("#compact-columns-metrics").asNormalizedText())
+                .contains("AllStatusesColumn");
+
+        j.submit(findForm(page, "reset"));
+        assertThat(RenderMetrics.get().getStatistics()).isEmpty();
+    }
+
+    @Test
+    void slowestJobsAreTracedFromManagementPage(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("traced");
+        j.buildAndAssertSuccess(p);
+        ListView v = new ListView("tracedView");
+        v.setIncludeRegex(".*");
+        v.setColumns(List.of(
+                new JobNameColorColumn(true, true, true, AbstractCompactColumn.colorblindHint_none),
+                new AllStatusesColumn(AbstractCompactColumn.colorblindHint_none, false, null, 0)));
+        j.jenkins.addView(v);
+        JenkinsRule.WebClient wc = j.createWebClient();
+        JobStatusCache.get().invalidate(p);
+
+        j.submit(findForm(wc.goTo("manage/compact-columns-metrics/"), "startTracing"));
+        assertThat(SlowCellTracer.get().isEnabled()).isTrue();
+        wc.goTo("view/tracedView/");
+
+        assertThat(SlowCellTracer.get().getSlowestJobs())
+                .extracting(SlowCellTracer.Trace::getJobFullName)
+                .containsExactly("traced");
+        HtmlPage page = wc.goTo("manage/compact-columns-metrics/");
+        assertThat(page.querySelector("#compact-columns-slowest-jobs").asNormalizedText())
+                .contains("traced");
+
+        j.submit(findForm(page, "stopTracing"));
+        assertThat(SlowCellTracer.get().isEnabled()).isFalse();
+        j.submit(findForm(wc.goTo("manage/compact-columns-metrics/"), "clearTraces"));
+        assertThat(SlowCellTracer.get().getSlowestJobs()).isEmpty();
+    }
+
+    private static HtmlForm findForm(HtmlPage page, String action) {
+        return page.getForms().stream()
+                .filter(f -> f.getActionAttribute().equals(action))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,110 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.ListView;
+import hudson.model.Result;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class RenderedCellCacheTest {
+
+    private static final Pattern CELL = Pattern.compile("<td data=.*?</td>", Pattern.DOTALL);
+
+    @Test
+    void cellsAreReusedUntilBuildsChange(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("proj1");
+        j.buildAndAssertSuccess(p);
+        CompactColumnsConfiguration.get().setCacheCells(true);
+        ListView v = new ListView("cachedView");
+        v.setIncludeRegex(".*");
+        v.setColumns(List.of(
+                new AllStatusesColumn(AbstractCompactColumn.colorblindHint_none, false, "PREFER_DATES", 0)));
+        j.jenkins.addView(v);
+        JenkinsRule.WebClient wc = j.createWebClient();
+        RenderedCellCache cache = RenderedCellCache.get();
+
+        String rendered = getCell(wc);
+        long hits = cache.getHits();
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(getCell(wc)).isEqualTo(rendered);
+        assertThat(cache.getHits()).isEqualTo(hits + 1);
+
+        p.getBuildersList().add(new FailureBuilder());
+        j.buildAndAssertStatus(Result.FAILURE, p);
+        long misses = cache.getMisses();
+        String failed = getCell(wc);
+        assertThat(cache.getMisses()).isEqualTo(misses + 1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(failed).contains("lastFailedBuild").isNotEqualTo(rendered);
+        assertThat(getCell(wc)).isEqualTo(failed);
+
+        // the same cell as without the cache
+        CompactColumnsConfiguration.get().setCacheCells(false);
+        String uncached = wc.goTo("view/cachedView/").querySelector("td[data]").asXml();
+        CompactColumnsConfiguration.get().setCacheCells(true);
+        assertThat(wc.goTo("view/cachedView/").querySelector("td[data]").asXml()).isEqualTo(uncached);
+    }
+
+    @Test
+    void boundedByLengthOfMarkup() {
+        RenderedCellCache cache = new RenderedCellCache(100);
+        JobStatusSnapshot snapshot = SyntheticJobs.snapshot("S", 1000);
+        for (int i = 0; i < 5; i++) {
+            cache.put(key(i), snapshot, 0, Long.MAX_VALUE, "x".repeat(30));
+        }
+
+        assertThat(cache.getChars()).isEqualTo(90);
+        assertThat(cache.get(key(0), snapshot, 1)).isNull();
+        assertThat(cache.get(key(1), snapshot, 1)).isNull();
+        assertThat(cache.get(key(4), snapshot, 1)).hasSize(30);
+    }
+
+    @Test
+    void currentUntilExpiry() {
+        RenderedCellCache cache = new RenderedCellCache(100);
+        JobStatusSnapshot snapshot = SyntheticJobs.snapshot("S", 1000);
+        cache.put(key(0), snapshot, 10, 20, "cell");
+
+        assertThat(cache.get(key(0), snapshot, 9)).isNull();
+        assertThat(cache.get(key(0), snapshot, 10)).isEqualTo("cell");
+        assertThat(cache.get(key(0), snapshot, 19)).isEqualTo("cell");
+        assertThat(cache.get(key(0), snapshot, 20)).isNull();
+        assertThat(cache.get(key(0), SyntheticJobs.snapshot("S", 1000), 15)).isNull();
+    }
+
+    @Test
+    void expiresWithTimeAgoString() {
+        long timestamp = 1_000_000_000_000L;
+        for (long now = timestamp; now < timestamp + 3 * ShortTimestamp.ONE_DAY_MS; now += 7919) {
+            long expiry = AbstractStatusesColumn.getTimeAgoExpiry(
+                    timestamp, now, false, AbstractStatusesColumn.TimeAgoType.DIFF);
+            String timeAgo = AbstractStatusesColumn.getTimeAgoString(
+                    Locale.ENGLISH, timestamp, now, false, AbstractStatusesColumn.TimeAgoType.DIFF);
+            assertThat(expiry).isGreaterThan(now);
+            assertThat(AbstractStatusesColumn.getTimeAgoString(
+                            Locale.ENGLISH, timestamp, expiry - 1, false, AbstractStatusesColumn.TimeAgoType.DIFF))
+                    .isEqualTo(timeAgo);
+        }
+    }
+
+    private static RenderedCellCache.Key key(int i) {
+        return new RenderedCellCache.Key(null, null, Locale.ENGLISH, "job" + i, null, false, false);
+    }
+
+    private static String getCell(JenkinsRule.WebClient wc) throws Exception {
+        String html = wc.goTo("view/cachedView/").getWebResponse().getContentAsString();
+        Matcher matcher = CELL.matcher(html);
+        assertThat(matcher.find()).isTrue();
+        return matcher.group();
+    }
+}
@@ -0,0 +1,50 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import com.robestone.hudson.compactcolumns.ShortTimestamp.Unit;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** The "time ago" texts of the DIFF time display, against the BigDecimal based formatting. */
+@JmhBenchmark
+public class ShortTimestampBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Duration {
+        /** 42 seconds, 3.2 hours, 17 days. */
+        @Param({"42000", "11520000", "1468800000"})
+        public float millis;
+
+        @Param({"en", "de"})
+        public String languageTag;
+
+        Locale locale;
+
+        @Setup
+        public void setup() {
+            locale = Locale.forLanguageTag(languageTag);
+        }
+    }
+
+    @Benchmark
+    public String primitiveRounding(Duration duration) {
+        return AbstractStatusesColumn.getShortTimestamp(duration.millis, duration.locale);
+    }
+
+    @Benchmark
+    public String bigDecimalRounding(Duration duration) {
+        Unit unit = Unit.of(duration.millis);
+        float number = duration.millis / unit.millis;
+        float rounded = new BigDecimal(number)
+                .setScale(number >= 10 ? 0 : 1, RoundingMode.HALF_DOWN)
+                .floatValue();
+        return unit.message(rounded).toString(duration.locale);
+    }
+}
@@ -0,0 +1,121 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.robestone.hudson.compactcolumns.ShortTimestamp.Unit;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Compares the primitive rounding and the message tables with the BigDecimal based formatting. */
+class ShortTimestampTest {
+
+    /** One for each Messages_*.properties. */
+    private static final List<Locale> LOCALES = List.of(
+            Locale.ROOT,
+            Locale.ENGLISH,
+            Locale.forLanguageTag("bg"),
+            Locale.forLanguageTag("da"),
+            Locale.GERMAN,
+            Locale.forLanguageTag("es"),
+            Locale.FRENCH,
+            Locale.ITALIAN,
+            Locale.JAPANESE,
+            Locale.forLanguageTag("lt"),
+            Locale.forLanguageTag("nl"),
+            Locale.forLanguageTag("pl"),
+            Locale.forLanguageTag("pt"),
+            Locale.forLanguageTag("pt-BR"),
+            Locale.forLanguageTag("ru"),
+            Locale.forLanguageTag("sr"),
+            Locale.forLanguageTag("tr"),
+            Locale.TRADITIONAL_CHINESE);
+
+    @Test
+    void sameOutputAtUnitBoundaries() {
+        List<Float> times = new ArrayList<>();
+        for (Unit unit : Unit.values()) {
+            // switching units
+            times.add((float) unit.millis - 1);
+            times.add((float) unit.millis);
+            times.add((float) unit.millis + 1);
+            for (int tenths = 0; tenths <= 600; tenths++) {
+                // every rounded number, and the rounding boundaries around it
+                times.add(unit.millis * tenths / 10f);
+                times.add(unit.millis * (tenths + 0.5f) / 10f);
+                times.add(unit.millis * (tenths - 0.5f) / 10f);
+                times.add(Math.nextUp(unit.millis * (tenths + 0.5f) / 10f));
+                times.add(Math.nextDown(unit.millis * (tenths + 0.5f) / 10f));
+            }
+        }
+        times.add(-1f);
+        times.add(0f);
+        times.add(999f);
+        times.add(250 * 365 * 24 * 3600 * 1000f);
+        assertSameOutput(times);
+    }
+
+    @Test
+    void sameOutputForRandomTimes() {
+        Random random = new Random(42);
+        List<Float> times = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            times.add((float) Math.pow(10, random.nextDouble() * 12));
+        }
+        assertSameOutput(times);
+    }
+
+    @Test
+    void sameOutputUntilNextChange() {
+        Random random = new Random(815);
+        for (int i = 0; i < 20000; i++) {
+            long time = (long) Math.pow(10, random.nextDouble() * 11);
+            long next = ShortTimestamp.getNextChange(time);
+            assertThat(next).isGreaterThan(time);
+            assertThat(ShortTimestamp.format(next - 1, Locale.ENGLISH))
+                    .as("%s", time)
+                    .isEqualTo(ShortTimestamp.format(time, Locale.ENGLISH));
+            assertThat(ShortTimestamp.getNextChange(next - 1)).isEqualTo(next);
+        }
+    }
+
+    @Test
+    void sameRoundedNumbers() {
+        Random random = new Random(4711);
+        for (int i = 0; i < 100000; i++) {
+            float number = random.nextFloat() * 100;
+            assertThat(AbstractStatusesColumn.getRoundedNumber(number))
+                    .as("%s", number)
+                    .isEqualTo(referenceRoundedNumber(number));
+        }
+    }
+
+    private static void assertSameOutput(List<Float> times) {
+        for (Locale locale : LOCALES) {
+            for (float time : times) {
+                assertThat(AbstractStatusesColumn.getShortTimestamp(time, locale))
+                        .as("%s ms in %s", time, locale)
+                        .isEqualTo(referenceShortTimestamp(time, locale));
+            }
+        }
+    }
+
+    /** How it used to be done. */
+    private static String referenceShortTimestamp(float time, Locale locale) {
+        if (time < ShortTimestamp.ONE_SECOND_MS) {
+            return Messages._util_second(0).toString(locale);
+        }
+        Unit unit = Unit.of(time);
+        return unit.message(referenceRoundedNumber(time / unit.millis)).toString(locale);
+    }
+
+    private static float referenceRoundedNumber(float number) {
+        int scale = number >= 10 ? 0 : 1;
+        return new BigDecimal(number).setScale(scale, RoundingMode.HALF_DOWN).floatValue();
+    }
+}
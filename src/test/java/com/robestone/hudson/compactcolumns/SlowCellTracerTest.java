@@ -0,0 +1,104 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.robestone.hudson.compactcolumns.SlowCellTracer.Part;
+import com.robestone.hudson.compactcolumns.SlowCellTracer.Trace;
+import hudson.model.Job;
+import org.junit.jupiter.api.Test;
+
+class SlowCellTracerTest {
+
+    @Test
+    void slowestCellOfEachJob() {
+        SlowCellTracer tracer = new SlowCellTracer(10);
+        tracer.add(trace("a", 3));
+        tracer.add(trace("b", 5));
+        tracer.add(trace("a", 7));
+        tracer.add(trace("c", 1));
+
+        assertThat(tracer.getSlowestJobs())
+                .extracting(Trace::getJobFullName, Trace::getMillis)
+                .containsExactly(tuple("a", 7.0), tuple("b", 5.0), tuple("c", 1.0));
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentTraces() {
+        SlowCellTracer tracer = new SlowCellTracer(3);
+        tracer.add(trace("old", 100));
+        for (int i = 0; i < 3; i++) {
+            tracer.add(trace("job" + i, i));
+        }
+
+        assertThat(tracer.getSlowestJobs()).extracting(Trace::getJobFullName).containsExactly("job2", "job1", "job0");
+        assertThat(tracer.getTraceCount()).isEqualTo(4);
+
+        tracer.clear();
+        assertThat(tracer.getSlowestJobs()).isEmpty();
+    }
+
+    @Test
+    void limitedToTheSlowestJobs() {
+        SlowCellTracer tracer = new SlowCellTracer(1000);
+        for (int i = 0; i < SlowCellTracer.TOP * 2; i++) {
+            tracer.add(trace("job" + i, i));
+        }
+
+        assertThat(tracer.getSlowestJobs())
+                .hasSize(SlowCellTracer.TOP)
+                .first()
+                .extracting(Trace::getJobFullName)
+                .isEqualTo("job" + (SlowCellTracer.TOP * 2 - 1));
+    }
+
+    @Test
+    void nothingIsTracedUnlessEnabled() {
+        SlowCellTracer tracer = new SlowCellTracer(10);
+        assertThat(tracer.start()).isNull();
+
+        tracer.setEnabled(true);
+        SlowCellTracer.Span span = tracer.start();
+        tracer.end(span, SyntheticJobs.job("a", "S", 0), AllStatusesColumn.class, Part.CELL);
+
+        assertThat(tracer.getSlowestJobs())
+                .singleElement()
+                .satisfies(trace -> {
+                    assertThat(trace.getColumnType()).isEqualTo("AllStatusesColumn");
+                    assertThat(trace.getPart()).isEqualTo(Part.CELL);
+                    assertThat(trace.getBuildsRead()).isZero();
+                });
+    }
+
+    private static Trace trace(String job, long millis) {
+        return new Trace(job, "AllStatusesColumn", Part.CELL, millis * 1_000_000, 0, 0);
+    }
+
+    @Test
+    void countsBuildsReadFromDisk() {
+        SlowCellTracer tracer = SlowCellTracer.get();
+        tracer.setEnabled(true);
+        try {
+            Job<?, ?> cell = SyntheticJobs.job("cell", "SF", 0);
+            Job<?, ?> builds = SyntheticJobs.job("builds", "SF", 0);
+            Job<?, ?> cached = SyntheticJobs.job("cached", "SF", 0);
+            SlowCellTracer.Span outer = tracer.start();
+            SlowCellTracer.noteBuildRead();
+            SlowCellTracer.Span inner = tracer.start();
+            SlowCellTracer.noteBuildRead();
+            SlowCellTracer.noteBuildRead();
+            tracer.end(inner, builds, AllStatusesColumn.class, Part.BUILDS);
+            SlowCellTracer.Span after = tracer.start();
+            tracer.end(after, cached, AllStatusesColumn.class, Part.CELL);
+            tracer.end(outer, cell, AllStatusesColumn.class, Part.CELL);
+
+            assertThat(tracer.getSlowestJobs())
+                    .extracting(Trace::getJobFullName, Trace::getBuildsRead)
+                    .containsExactlyInAnyOrder(tuple("cell", 3), tuple("builds", 2), tuple("cached", 0));
+        } finally {
+            tracer.setEnabled(false);
+            tracer.clear();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hudson.model.Result;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StatusIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void snapshotsAreReadBack() {
+        Path file = dir.resolve(StatusIndex.FILE_NAME);
+        StatusIndex index = new StatusIndex(file);
+        JobStatusSnapshot snapshot = SyntheticJobs.snapshot("SUFA", 1_700_000_000_000L);
+        JobStatusSnapshot running = new JobStatusSnapshot(
+                new JobStatusSnapshot.Build(3, 1_700_000_000_000L, 0, (Result) null), null, null, null, null, null);
+        index.put("folder/job", snapshot);
+        index.put("running", running);
+        index.put("deleted", snapshot);
+        index.write();
+        index.remove("deleted");
+        index.write();
+
+        StatusIndex read = new StatusIndex(file);
+
+        assertThat(read.getNames()).containsExactlyInAnyOrder("folder/job", "running");
+        assertThat(read.find("folder/job")).isEqualTo(snapshot);
+        assertThat(read.find("running")).isEqualTo(running);
+        assertThat(read.find("running").getLastBuild().getResult()).isNull();
+    }
+
+    @Test
+    void entriesReadFromFileAreStaleSinceTheirLastCheckpoint() throws Exception {
+        Path file = dir.resolve(StatusIndex.FILE_NAME);
+        StatusIndex index = new StatusIndex(file);
+        index.put("read", SyntheticJobs.snapshot("S", 1));
+        index.put("updated", SyntheticJobs.snapshot("S", 1));
+        long before = System.currentTimeMillis();
+        index.write();
+        long after = System.currentTimeMillis();
+        assertThat(index.getStaleSince("read")).isEqualTo(Long.MAX_VALUE);
+
+        StatusIndex read = new StatusIndex(file);
+        assertThat(read.getStaleSince("read")).isBetween(before, after);
+        Thread.sleep(10);
+        read.put("updated", SyntheticJobs.snapshot("F", 2));
+        read.write();
+        assertThat(read.getStaleSince("read")).isBetween(before, after);
+        assertThat(read.getStaleSince("updated")).isEqualTo(Long.MAX_VALUE);
+
+        // later checkpoints do not make the entry that was never kept current look current
+        StatusIndex again = new StatusIndex(file);
+        assertThat(again.getStaleSince("read")).isBetween(before, after);
+        assertThat(again.getStaleSince("updated")).isGreaterThan(after);
+    }
+
+    @Test
+    void rewrittenOnceMostlyOutdated() throws Exception {
+        Path file = dir.resolve(StatusIndex.FILE_NAME);
+        StatusIndex index = new StatusIndex(file);
+        for (int i = 0; i < 10_000; i++) {
+            index.put("job", SyntheticJobs.snapshot("S".repeat(1 + i % 10), i));
+            index.write();
+        }
+
+        assertThat(Files.size(file)).isLessThan(128 * 1024);
+        assertThat(new StatusIndex(file).find("job")).isEqualTo(index.find("job"));
+    }
+
+    @Test
+    void readUpToCorruptRecord() throws Exception {
+        Path file = dir.resolve(StatusIndex.FILE_NAME);
+        StatusIndex index = new StatusIndex(file);
+        index.put("first", SyntheticJobs.snapshot("S", 1));
+        index.write();
+        long valid = Files.size(file);
+        index.put("second", SyntheticJobs.snapshot("F", 2));
+        index.write();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // flips a byte in the second record
+            channel.write(ByteBuffer.wrap(new byte[] {42}), valid + 10);
+        }
+
+        StatusIndex read = new StatusIndex(file);
+        assertThat(read.getNames()).containsExactly("first");
+
+        read.put("third", SyntheticJobs.snapshot("U", 3));
+        read.write();
+        assertThat(new StatusIndex(file).getNames()).containsExactlyInAnyOrder("first", "third");
+    }
+
+    @Test
+    void otherFilesAreIgnored() throws Exception {
+        Path file = dir.resolve(StatusIndex.FILE_NAME);
+        Files.writeString(file, "<?xml version='1.1' encoding='UTF-8'?>");
+
+        StatusIndex index = new StatusIndex(file);
+        assertThat(index.size()).isZero();
+
+        index.put("job", SyntheticJobs.snapshot("S", 1));
+        index.write();
+        assertThat(new StatusIndex(file).getNames()).containsExactly("job");
+    }
+}
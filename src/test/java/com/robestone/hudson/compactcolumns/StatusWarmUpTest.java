@@ -0,0 +1,55 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.ListView;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class StatusWarmUpTest {
+
+    @Test
+    void startsOnceItemsAreLoaded(JenkinsRule j) throws Exception {
+        assertThat(StatusWarmUp.get().await(30, TimeUnit.SECONDS)).isTrue();
+        StatusWarmUp.Progress atStartup = StatusWarmUp.get().getProgress();
+
+        j.jenkins.reload();
+
+        assertThat(StatusWarmUp.get().await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(StatusWarmUp.get().getProgress()).isNotSameAs(atStartup);
+    }
+
+    @Test
+    void jobsInViewsWithCompactColumnsAreRead(JenkinsRule j) throws Exception {
+        FreeStyleProject shown = j.createFreeStyleProject("shown");
+        FreeStyleProject other = j.createFreeStyleProject("other");
+        j.buildAndAssertSuccess(shown);
+        j.buildAndAssertSuccess(other);
+        ListView v = new ListView("compact");
+        v.setIncludeRegex("shown");
+        v.setColumns(List.of(new AllStatusesColumn(AbstractCompactColumn.colorblindHint_none, false, null, 0)));
+        j.jenkins.addView(v);
+        assertThat(StatusWarmUp.collectJobs(j.jenkins)).containsExactly(shown);
+        JobStatusCache.get().invalidateAll();
+
+        StatusWarmUp.get().start();
+        assertThat(StatusWarmUp.get().await(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(JobStatusCache.get().isCached(shown)).isTrue();
+        assertThat(JobStatusCache.get().isCached(other)).isFalse();
+        StatusWarmUp.Progress progress = StatusWarmUp.get().getProgress();
+        assertThat(progress.getTotal()).isEqualTo(1);
+        assertThat(progress.getRead()).isEqualTo(1);
+        assertThat(j.createWebClient()
+                        .goTo("manage/compact-columns-metrics/")
+                        .querySelector("#compact-columns-warm-up")
+                        .asNormalizedText())
+                .contains("1 jobs");
+    }
+}
@@ -0,0 +1,147 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mocked jobs with generated build histories, so benchmarks do not need a running Jenkins.
+ *
+ * <p>The mocks are stub-only, they do not record their invocations, so they cost about as much as
+ * a plain implementation when called from a benchmark. {@link Job} and {@link Run} themselves cannot
+ * be subclassed without a Jenkins to store builds in.
+ */
+final class SyntheticJobs {
+
+    static final long BUILD_INTERVAL_MS = 37 * 60 * 1000L;
+
+    /** Mostly stable builds, like on a real dashboard. */
+    private static final String RESULTS = "SSSSSSUUFFAN";
+
+    /** How long ago the newest builds ran, so every unit of the time-ago strings gets used. */
+    private static final long[] AGES_MS = {
+        45 * 1000L,
+        20 * 60 * 1000L,
+        5 * ShortTimestamp.ONE_HOUR_MS,
+        3 * ShortTimestamp.ONE_DAY_MS,
+        4 * ShortTimestamp.ONE_MONTH_MS,
+        2 * ShortTimestamp.ONE_YEAR_MS
+    };
+
+    private SyntheticJobs() {}
+
+    /**
+     * @param history one character per build, most recent first: <b>S</b>table, <b>U</b>nstable,
+     *     <b>F</b>ailed, <b>A</b>borted or <b>N</b>ot built
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static Job<?, ?> job(String name, String history, long newestTimestamp) {
+        Job job = mock(Job.class, withSettings().stubOnly());
+        when(job.getFullName()).thenReturn(name);
+        Run[] runs = new Run[history.length()];
+        for (int i = runs.length - 1; i >= 0; i--) {
+            Run run = mock(Run.class, withSettings().stubOnly());
+            run.number = runs.length - i;
+            when(run.getParent()).thenReturn(job);
+            when(run.getResult()).thenReturn(result(history.charAt(i)));
+            when(run.getTimeInMillis()).thenReturn(newestTimestamp - i * BUILD_INTERVAL_MS);
+            when(run.getDuration()).thenReturn(90_000L + i);
+            when(run.getPreviousBuild()).thenReturn(i + 1 < runs.length ? runs[i + 1] : null);
+            runs[i] = run;
+        }
+        Run lastBuild = newest(runs, history, "SUFAN");
+        Run lastFailedBuild = newest(runs, history, "F");
+        Run lastUnstableBuild = newest(runs, history, "U");
+        Run lastStableBuild = newest(runs, history, "S");
+        when(job.getLastBuild()).thenReturn(lastBuild);
+        when(job.getLastCompletedBuild()).thenReturn(lastBuild);
+        when(job.getLastFailedBuild()).thenReturn(lastFailedBuild);
+        when(job.getLastUnstableBuild()).thenReturn(lastUnstableBuild);
+        when(job.getLastStableBuild()).thenReturn(lastStableBuild);
+        return job;
+    }
+
+    /**
+     * The builds of {@link #job} without any mocks, as they are known once every build has been seen
+     * completing. A snapshot read from the job may leave out the last aborted build where it is not
+     * shown, but has to look the same in every column.
+     */
+    static JobStatusSnapshot snapshot(String history, long newestTimestamp) {
+        JobStatusSnapshot.Build lastFailed = newest(history, "F", newestTimestamp);
+        JobStatusSnapshot.Build lastUnstable = newest(history, "U", newestTimestamp);
+        JobStatusSnapshot.Build lastStable = newest(history, "S", newestTimestamp);
+        JobStatusSnapshot.Build lastAborted =
+                newest(history, "A", newestTimestamp, JobStatusSnapshot.MAX_ABORTED_SCAN);
+        JobStatusSnapshot.Build lastBuild = newest(history, "SUFAN", newestTimestamp);
+        return new JobStatusSnapshot(lastBuild, lastBuild, lastFailed, lastUnstable, lastStable, lastAborted);
+    }
+
+    private static JobStatusSnapshot.Build newest(String history, String results, long newestTimestamp) {
+        return newest(history, results, newestTimestamp, history.length());
+    }
+
+    /** @param limit how many of the most recent builds are looked at */
+    private static JobStatusSnapshot.Build newest(
+            String history, String results, long newestTimestamp, int limit) {
+        for (int i = 0; i < Math.min(history.length(), limit); i++) {
+            char c = history.charAt(i);
+            if (results.indexOf(c) >= 0) {
+                return new JobStatusSnapshot.Build(
+                        history.length() - i, newestTimestamp - i * BUILD_INTERVAL_MS, 90_000L + i, result(c));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Jobs with random histories that are the same for every run of a benchmark with the same seed,
+     * so results of different commits can be compared.
+     */
+    static List<Job<?, ?>> jobs(int count, int builds, long seed, long now) {
+        Random random = new Random(seed);
+        List<Job<?, ?>> jobs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder history = new StringBuilder(builds);
+            for (int b = 0; b < builds; b++) {
+                history.append(RESULTS.charAt(random.nextInt(RESULTS.length())));
+            }
+            long age = AGES_MS[random.nextInt(AGES_MS.length)];
+            jobs.add(job("job" + i, history.toString(), now - age));
+        }
+        return jobs;
+    }
+
+    private static Run<?, ?> newest(Run<?, ?>[] runs, String history, String results) {
+        for (int i = 0; i < runs.length; i++) {
+            if (results.indexOf(history.charAt(i)) >= 0) {
+                return runs[i];
+            }
+        }
+        return null;
+    }
+
+    private static Result result(char c) {
+        switch (c) {
+            case 'S':
+                return Result.SUCCESS;
+            case 'U':
+                return Result.UNSTABLE;
+            case 'F':
+                return Result.FAILURE;
+            case 'A':
+                return Result.ABORTED;
+            case 'N':
+                return Result.NOT_BUILT;
+            default:
+                throw new IllegalArgumentException("Unknown build result: " + c);
+        }
+    }
+}
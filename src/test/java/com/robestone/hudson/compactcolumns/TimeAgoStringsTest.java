@@ -0,0 +1,49 @@
+/* SPDX-License-Identifier: MIT */
+package com.robestone.hudson.compactcolumns;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.robestone.hudson.compactcolumns.AbstractStatusesColumn.TimeAgoType;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TimeAgoStringsTest {
+
+    @Test
+    void sameAsFormattingEveryTime() {
+        Random random = new Random(4711);
+        long[] timestamps = new long[50];
+        long now = 1_700_000_000_000L;
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = now - (long) Math.pow(10, random.nextDouble() * 11);
+        }
+        for (TimeAgoType type : TimeAgoType.values()) {
+            for (Locale locale : new Locale[] {Locale.ENGLISH, Locale.forLanguageTag("nl")}) {
+                TimeAgoStrings strings = new TimeAgoStrings(1000);
+                long time = now;
+                for (int render = 0; render < 500; render++) {
+                    // renders every now and then, across a few days
+                    time += (long) (random.nextDouble() * 20 * ShortTimestamp.ONE_MINUTE_MS);
+                    for (long timestamp : timestamps) {
+                        boolean multiple = random.nextBoolean();
+                        assertThat(strings.get(locale, timestamp, time, multiple, type))
+                                .as("%s %s %s at %s", type, locale, timestamp, time)
+                                .isEqualTo(AbstractStatusesColumn.formatTimeAgoString(
+                                        locale, timestamp, time, multiple, type));
+                    }
+                }
+                assertThat(strings.getHits()).isGreaterThan(strings.getMisses());
+            }
+        }
+    }
+
+    @Test
+    void boundedSize() {
+        TimeAgoStrings strings = new TimeAgoStrings(10);
+        for (int i = 0; i < 25; i++) {
+            strings.get(Locale.ENGLISH, i * 1000L, 100_000L, false, TimeAgoType.DIFF);
+        }
+        assertThat(strings.size()).isLessThanOrEqualTo(10);
+    }
+}